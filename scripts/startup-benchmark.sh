@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+#
+# Measures time-to-first-successful POST /payments for the application.
+#
+# Each run launches a fresh JVM, then repeatedly creates a loan and pays against it
+# until the payment returns 201 Created. The time from launch to that response is reported.
+#
+# Usage:
+#   scripts/startup-benchmark.sh [default|startup] [runs]
+#
+#   default  runs target/RadixTechAssessment-1.0-SNAPSHOT.jar as built by "mvn package"
+#   startup  runs the AOT-processed, CDS-trained application built by "mvn -Pstartup package"
+#
+set -euo pipefail
+
+MODE="${1:-default}"
+RUNS="${2:-5}"
+PORT="${PORT:-8080}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+TARGET_DIR="$(cd "$(dirname "$0")/.." && pwd)/target"
+JAR_NAME="RadixTechAssessment-1.0-SNAPSHOT.jar"
+BASE_URL="http://localhost:${PORT}"
+
+case "$MODE" in
+  default)
+    WORK_DIR="$TARGET_DIR"
+    JAVA_ARGS=(-jar "$JAR_NAME")
+    ;;
+  startup)
+    WORK_DIR="$TARGET_DIR/application"
+    [[ -f "$WORK_DIR/application.jsa" ]] || { echo "Missing CDS archive, build with: mvn -Pstartup package" >&2; exit 1; }
+    JAVA_ARGS=(-XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=startup -jar "$JAR_NAME")
+    ;;
+  *)
+    echo "Unknown mode: $MODE (expected default or startup)" >&2
+    exit 1
+    ;;
+esac
+
+now_millis() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+first_payment() {
+  local loan_id
+  loan_id=$(curl -sf -X POST "${BASE_URL}/loans?loanAmount=1000&term=12" | sed -n 's/.*"loanId":"\([^"]*\)".*/\1/p') || return 1
+  [[ -n "$loan_id" ]] || return 1
+  [[ "$(curl -s -o /dev/null -w '%{http_code}' -X POST "${BASE_URL}/payments?loanId=${loan_id}&paymentAmount=100")" == "201" ]]
+}
+
+total=0
+
+for run in $(seq 1 "$RUNS"); do
+  start=$(now_millis)
+  (cd "$WORK_DIR" && exec "$JAVA" -Dserver.port="$PORT" "${JAVA_ARGS[@]}" > /dev/null 2>&1) &
+  pid=$!
+
+  until first_payment; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "Application exited before serving a payment" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+
+  elapsed=$(( $(now_millis) - start ))
+  total=$(( total + elapsed ))
+  echo "run ${run}: first successful POST /payments after ${elapsed} ms"
+
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+done
+
+echo "${MODE}: mean time-to-first-payment over ${RUNS} runs: $(( total / RUNS )) ms"
@@ -0,0 +1,44 @@
+package za.graham.Archive.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import za.graham.Archive.exception.ArchiveRunningException;
+import za.graham.Archive.model.ArchiveRun;
+import za.graham.Archive.service.LoanArchiveService;
+import za.graham.common.api.ApiError;
+import za.graham.common.exception.InvalidDataException;
+
+/**
+ * REST controller that runs the settled loan archive on demand, in addition to its schedule.
+ */
+@RestController
+@RequestMapping("/archive")
+public class ArchiveController {
+
+    @Autowired
+    LoanArchiveService loanArchiveService;
+
+    /**
+     * Archives every loan settled more than {settledDays} days ago, together with its payments.
+     *
+     * @param settledDays the minimum number of days since the loan was settled
+     * @return 200 OK: with the run summary, 400 Bad Request: if {settledDays} is negative,
+     * 409 Conflict: if an archive run is already in progress
+     */
+    @PostMapping
+    public ResponseEntity<?> archiveSettledLoans(@RequestParam Integer settledDays) {
+        ArchiveRun run;
+
+        try {
+            run = loanArchiveService.archiveSettledLoans(settledDays);
+        } catch (InvalidDataException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
+        } catch (ArchiveRunningException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.CONFLICT, ex);
+        }
+
+        return new ResponseEntity<>(run, HttpStatus.OK);
+    }
+}
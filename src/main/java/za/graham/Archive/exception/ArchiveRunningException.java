@@ -0,0 +1,24 @@
+package za.graham.Archive.exception;
+
+/**
+ * Exception used when an archive run is requested while another run is still in progress
+ */
+public class ArchiveRunningException extends RuntimeException {
+
+    public ArchiveRunningException() {
+        super();
+    }
+
+    public ArchiveRunningException(String message) {
+        super(message);
+    }
+
+    public ArchiveRunningException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ArchiveRunningException(Throwable cause) {
+        super(cause);
+    }
+
+}
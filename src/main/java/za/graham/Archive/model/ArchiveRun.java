@@ -0,0 +1,16 @@
+package za.graham.Archive.model;
+
+import java.time.Instant;
+
+/**
+ * Outcome of an archive run.
+ *
+ * @param settledBefore loans settled before this instant were archived
+ * @param batches the number of batches moved, each in its own transaction
+ * @param loansArchived loans moved to the archive during this run
+ * @param paymentsArchived payments moved to the archive during this run
+ * @param elapsedMillis wall-clock duration of this run
+ */
+public record ArchiveRun(Instant settledBefore, int batches, long loansArchived, long paymentsArchived,
+                         long elapsedMillis) {
+}
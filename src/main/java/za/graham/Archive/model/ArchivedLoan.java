@@ -0,0 +1,56 @@
+package za.graham.Archive.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import za.graham.Loan.model.Loan;
+
+import java.time.Instant;
+
+/**
+ * JPA entity representing a settled loan that has been moved out of the live {loans} table.
+ */
+@Entity
+@Table(name = "archived_loans")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedLoan {
+    @Id
+    private String loanId;
+
+    private Double loanAmount;
+
+    private Integer term;
+
+    @Enumerated(EnumType.STRING)
+    private Loan.Status status;
+
+    private Instant createdDate;
+
+    /**
+     * The loan's version when it was archived, so its ETag does not change.
+     */
+    private Long version;
+
+    private Instant settledDate;
+
+    private Instant archivedDate;
+
+    /**
+     * Returns the loan as it was in the live table.
+     */
+    public Loan toLoan() {
+        return Loan.builder()
+                .loanId(loanId)
+                .loanAmount(loanAmount)
+                .term(term)
+                .status(status)
+                .createdDate(createdDate)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package za.graham.Archive.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * JPA entity representing a payment against an archived loan.
+ * The loan is referenced by ID only, since it no longer exists in the live {loans} table.
+ */
+@Entity
+@Table(name = "archived_payments", indexes = @Index(name = "idx_archived_payments_loan_date", columnList = "loanId, paymentDate"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedPayment {
+    @Id
+    private String paymentId;
+
+    private String loanId;
+
+    private Double paymentAmount;
+
+    private Instant paymentDate;
+
+    private boolean settlesLoan;
+}
@@ -0,0 +1,24 @@
+package za.graham.Archive.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import za.graham.Archive.model.ArchivedLoan;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, String> {
+
+    @Query("select l.loanId from ArchivedLoan l where l.loanId > :afterLoanId order by l.loanId")
+    List<String> findLoanIdsAfter(String afterLoanId, Limit limit);
+
+    @Modifying
+    @Query("insert into ArchivedLoan (loanId, loanAmount, term, status, createdDate, version, settledDate, archivedDate) " +
+            "select l.loanId, l.loanAmount, l.term, l.status, l.createdDate, l.version, p.paymentDate, :archivedDate " +
+            "from Loan l join Payment p on p.loan = l and p.settlesLoan = true where l.loanId in :loanIds")
+    int copyFromLoans(Collection<String> loanIds, Instant archivedDate);
+
+}
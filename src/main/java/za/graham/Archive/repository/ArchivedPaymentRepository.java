@@ -0,0 +1,18 @@
+package za.graham.Archive.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import za.graham.Archive.model.ArchivedPayment;
+
+import java.util.Collection;
+
+public interface ArchivedPaymentRepository extends JpaRepository<ArchivedPayment, String> {
+
+    @Modifying
+    @Query("insert into ArchivedPayment (paymentId, loanId, paymentAmount, paymentDate, settlesLoan) " +
+            "select p.paymentId, p.loan.loanId, p.paymentAmount, p.paymentDate, p.settlesLoan " +
+            "from Payment p where p.loan.loanId in :loanIds")
+    int copyFromPayments(Collection<String> loanIds);
+
+}
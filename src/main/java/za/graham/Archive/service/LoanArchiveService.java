@@ -0,0 +1,166 @@
+package za.graham.Archive.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.graham.Archive.exception.ArchiveRunningException;
+import za.graham.Archive.model.ArchiveRun;
+import za.graham.Archive.repository.ArchivedLoanRepository;
+import za.graham.Archive.repository.ArchivedPaymentRepository;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.Loan.service.LoanCache;
+import za.graham.Payment.repository.PaymentRepository;
+import za.graham.common.exception.InvalidDataException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves loans that were settled long ago, together with their payments, out of the live tables into the archive
+ * tables, so the live tables and their indexes stay sized to the active book.
+ * <p>
+ * Settled loans are never paid again, so once archived they are only read, through the {LoanService.getLoan}
+ * fallback. Each batch is copied and deleted with set-based statements in one transaction, so a loan is always
+ * in exactly one place, and a failed run simply leaves the remaining loans for the next one.
+ */
+@Service
+public class LoanArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanArchiveService.class);
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    ArchivedPaymentRepository archivedPaymentRepository;
+
+    @Autowired
+    LoanCache loanCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${archive.enabled:true}")
+    boolean enabled = true;
+
+    @Value("${archive.settled-days:90}")
+    int settledDays = 90;
+
+    @Value("${archive.batch-size:500}")
+    int batchSize = 500;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Archives loans settled more than {archive.settled-days} ago, every {archive.interval}.
+     */
+    @Scheduled(initialDelayString = "${archive.interval:PT1H}", fixedDelayString = "${archive.interval:PT1H}")
+    void archiveOnSchedule() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            archiveSettledLoans(settledDays);
+        } catch (ArchiveRunningException ex) {
+            log.info("Scheduled archive run skipped, a run is already in progress");
+        }
+    }
+
+    /**
+     * Archives every loan whose settling payment was made more than {settledDays} days ago, in batches.
+     *
+     * @param settledDays the minimum number of days since the loan was settled
+     * @return the {ArchiveRun} summary
+     * @throws InvalidDataException if {settledDays} is negative
+     * @throws ArchiveRunningException if another archive run is already in progress
+     */
+    public ArchiveRun archiveSettledLoans(final int settledDays) throws InvalidDataException, ArchiveRunningException {
+        if (settledDays < 0) {
+            throw new InvalidDataException("settledDays cannot be negative");
+        }
+
+        Instant settledBefore = Instant.now().minus(Duration.ofDays(settledDays));
+
+        if (!running.compareAndSet(false, true)) {
+            throw new ArchiveRunningException("An archive run is already in progress");
+        }
+
+        try {
+            return run(settledBefore);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ArchiveRun run(final Instant settledBefore) {
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int batches = 0;
+        long loansArchived = 0;
+        long paymentsArchived = 0;
+
+        while (true) {
+            List<String> loanIds = paymentRepository.findLoanIdsSettledBefore(settledBefore, Limit.of(batchSize));
+
+            if (loanIds.isEmpty()) {
+                break;
+            }
+
+            long[] moved = transaction.execute(status -> archiveBatch(loanIds));
+            loanIds.forEach(loanCache::evict);
+
+            batches++;
+            loansArchived += moved[0];
+            paymentsArchived += moved[1];
+
+            if (loanIds.size() < batchSize) {
+                break;
+            }
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("Settled loans archived {settledBefore: {}, batches: {}, loans: {}, payments: {}, elapsedMillis: {}}",
+                settledBefore, batches, loansArchived, paymentsArchived, elapsedMillis);
+
+        return new ArchiveRun(settledBefore, batches, loansArchived, paymentsArchived, elapsedMillis);
+    }
+
+    /**
+     * Copies one batch of loans and their payments to the archive and deletes them from the live tables.
+     *
+     * @return the number of loans and payments moved
+     */
+    private long[] archiveBatch(final List<String> loanIds) {
+        Instant archivedDate = Instant.now();
+
+        int loans = archivedLoanRepository.copyFromLoans(loanIds, archivedDate);
+        int payments = archivedPaymentRepository.copyFromPayments(loanIds);
+
+        if (loans != loanIds.size()) {
+            throw new IllegalStateException(String.format(
+                    "Archive batch copied %d of %d loans, rolling back", loans, loanIds.size()));
+        }
+
+        paymentRepository.deleteByLoanIds(loanIds);
+        loanRepository.deleteAllByIdInBatch(loanIds);
+
+        return new long[]{loans, payments};
+    }
+}
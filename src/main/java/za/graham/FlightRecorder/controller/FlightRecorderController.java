@@ -0,0 +1,99 @@
+package za.graham.FlightRecorder.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import za.graham.FlightRecorder.exception.RecordingAlreadyRunningException;
+import za.graham.FlightRecorder.exception.RecordingNotFoundException;
+import za.graham.FlightRecorder.model.RecordingInfo;
+import za.graham.FlightRecorder.service.FlightRecorderService;
+import za.graham.common.api.ApiError;
+import za.graham.common.exception.InvalidDataException;
+
+import java.util.List;
+
+/**
+ * REST controller for starting, dumping and stopping flight recordings on the running instance.
+ */
+@RestController
+@RequestMapping("/flight-recordings")
+public class FlightRecorderController {
+
+    @Autowired
+    FlightRecorderService flightRecorderService;
+
+    /**
+     * Lists the active flight recordings.
+     *
+     * @return 200 OK: with the active recordings
+     */
+    @GetMapping
+    public ResponseEntity<List<RecordingInfo>> getRecordings() {
+        return new ResponseEntity<>(flightRecorderService.getRecordings(), HttpStatus.OK);
+    }
+
+    /**
+     * Starts a flight recording with the payment profile.
+     *
+     * @param name the name of the recording
+     * @param maxAgeMinutes how long recorded data is kept, 0 for unbounded
+     * @param maxSizeMb how much recorded data is kept, 0 for unbounded
+     * @return 201 Created: with the started recording, 400 Bad Request: if the name or limits are invalid,
+     * 409 Conflict: if a recording with the same name is already running
+     */
+    @PostMapping("/start")
+    public ResponseEntity<?> startRecording(@RequestParam(defaultValue = "payments") String name,
+                                            @RequestParam(defaultValue = "30") Long maxAgeMinutes,
+                                            @RequestParam(defaultValue = "250") Long maxSizeMb) {
+        RecordingInfo recording;
+
+        try {
+            recording = flightRecorderService.startRecording(name, maxAgeMinutes, maxSizeMb);
+        } catch (InvalidDataException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
+        } catch (RecordingAlreadyRunningException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.CONFLICT, ex);
+        }
+
+        return new ResponseEntity<>(recording, HttpStatus.CREATED);
+    }
+
+    /**
+     * Writes what a running recording has captured so far to a file, leaving it running.
+     *
+     * @param name the name of the recording
+     * @return 200 OK: with the recording and the file written, 404 Not Found: if no such recording is running
+     */
+    @PostMapping("/dump")
+    public ResponseEntity<?> dumpRecording(@RequestParam(defaultValue = "payments") String name) {
+        RecordingInfo recording;
+
+        try {
+            recording = flightRecorderService.dumpRecording(name);
+        } catch (RecordingNotFoundException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.NOT_FOUND, ex);
+        }
+
+        return new ResponseEntity<>(recording, HttpStatus.OK);
+    }
+
+    /**
+     * Stops a running recording and writes everything it captured to a file.
+     *
+     * @param name the name of the recording
+     * @return 200 OK: with the stopped recording and the file written, 404 Not Found: if no such recording is running
+     */
+    @PostMapping("/stop")
+    public ResponseEntity<?> stopRecording(@RequestParam(defaultValue = "payments") String name) {
+        RecordingInfo recording;
+
+        try {
+            recording = flightRecorderService.stopRecording(name);
+        } catch (RecordingNotFoundException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.NOT_FOUND, ex);
+        }
+
+        return new ResponseEntity<>(recording, HttpStatus.OK);
+    }
+}
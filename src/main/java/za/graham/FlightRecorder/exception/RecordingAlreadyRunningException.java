@@ -0,0 +1,24 @@
+package za.graham.FlightRecorder.exception;
+
+/**
+ * Exception used when a flight recording is started with the name of one that is still active
+ */
+public class RecordingAlreadyRunningException extends RuntimeException {
+
+    public RecordingAlreadyRunningException() {
+        super();
+    }
+
+    public RecordingAlreadyRunningException(String message) {
+        super(message);
+    }
+
+    public RecordingAlreadyRunningException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public RecordingAlreadyRunningException(Throwable cause) {
+        super(cause);
+    }
+
+}
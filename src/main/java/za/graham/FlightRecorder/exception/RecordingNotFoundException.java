@@ -0,0 +1,24 @@
+package za.graham.FlightRecorder.exception;
+
+/**
+ * Exception used when no active flight recording exists with the requested name
+ */
+public class RecordingNotFoundException extends RuntimeException {
+
+    public RecordingNotFoundException() {
+        super();
+    }
+
+    public RecordingNotFoundException(String message) {
+        super(message);
+    }
+
+    public RecordingNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public RecordingNotFoundException(Throwable cause) {
+        super(cause);
+    }
+
+}
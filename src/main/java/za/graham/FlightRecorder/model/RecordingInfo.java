@@ -0,0 +1,18 @@
+package za.graham.FlightRecorder.model;
+
+import java.time.Instant;
+
+/**
+ * The state of a flight recording managed through the API.
+ *
+ * @param name the name the recording was started with
+ * @param id the JVM-assigned recording ID
+ * @param state the recording state, e.g. RUNNING or STOPPED
+ * @param startTime when the recording started
+ * @param maxAgeSeconds how long recorded data is kept, 0 for unbounded
+ * @param maxSizeBytes how much recorded data is kept, 0 for unbounded
+ * @param dumpFile the file most recently written for this recording, if any
+ */
+public record RecordingInfo(String name, long id, String state, Instant startTime, long maxAgeSeconds,
+                            long maxSizeBytes, String dumpFile) {
+}
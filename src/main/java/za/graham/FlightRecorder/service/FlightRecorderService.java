@@ -0,0 +1,222 @@
+package za.graham.FlightRecorder.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import za.graham.FlightRecorder.exception.RecordingAlreadyRunningException;
+import za.graham.FlightRecorder.exception.RecordingNotFoundException;
+import za.graham.FlightRecorder.model.RecordingInfo;
+import za.graham.common.exception.InvalidDataException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Service layer for starting, dumping and stopping JDK Flight Recorder recordings on the running instance.
+ * <p>
+ * Recordings use the JDK "default" settings with the bundled {jfr/payments.jfc} profile applied on top, which
+ * enables the payment pipeline events in {za.graham.common.flightrecorder}. Those events cost next to nothing
+ * while no recording has them enabled.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    private static final String SETTINGS_RESOURCE = "/jfr/payments.jfc";
+
+    private static final Pattern RECORDING_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private static final long BYTES_PER_MB = 1024L * 1024;
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${flight-recorder.directory:recordings}")
+    String directory = "recordings";
+
+    private final Map<String, Recording> recordings = new ConcurrentHashMap<>();
+
+    private final Map<String, Path> dumpFiles = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a new recording with the payment profile.
+     *
+     * @param name the name of the recording, letters, digits, '-' and '_' only
+     * @param maxAgeMinutes how long recorded data is kept, 0 for unbounded
+     * @param maxSizeMb how much recorded data is kept, 0 for unbounded
+     * @return the started recording
+     * @throws InvalidDataException if the name or limits are invalid
+     * @throws RecordingAlreadyRunningException if a recording with the same name is still active
+     */
+    public RecordingInfo startRecording(final String name, final long maxAgeMinutes, final long maxSizeMb)
+            throws InvalidDataException, RecordingAlreadyRunningException {
+        validateName(name);
+
+        if (maxAgeMinutes < 0 || maxSizeMb < 0) {
+            throw new InvalidDataException("Recording limits cannot be negative");
+        }
+
+        // Converted in long arithmetic, and bounded so the conversion cannot overflow
+        if (maxAgeMinutes > Long.MAX_VALUE / 60 || maxSizeMb > Long.MAX_VALUE / BYTES_PER_MB) {
+            throw new InvalidDataException(String.format(
+                    "Recording limits are too large {maxAgeMinutes: %d, maxSizeMb: %d}", maxAgeMinutes, maxSizeMb));
+        }
+
+        Duration maxAge = maxAgeMinutes > 0 ? Duration.ofMinutes(maxAgeMinutes) : null;
+        long maxSizeBytes = maxSizeMb * BYTES_PER_MB;
+
+        Recording recording = new Recording(settings());
+        recording.setName(name);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+
+        if (recordings.putIfAbsent(name, recording) != null) {
+            recording.close();
+            throw new RecordingAlreadyRunningException(String.format("Recording already running {name: %s}", name));
+        }
+
+        dumpFiles.remove(name);
+        recording.start();
+        log.info("Flight recording started {name: {}, id: {}}", name, recording.getId());
+
+        return toInfo(name, recording);
+    }
+
+    /**
+     * Writes the data recorded so far to a file in the recordings directory, leaving the recording running.
+     *
+     * @param name the name of the recording
+     * @return the recording, with the file written
+     * @throws RecordingNotFoundException if no active recording has the given name
+     */
+    public RecordingInfo dumpRecording(final String name) throws RecordingNotFoundException {
+        Recording recording = getRecording(name);
+        dump(name, recording);
+
+        return toInfo(name, recording);
+    }
+
+    /**
+     * Stops a recording, writes everything it recorded to a file in the recordings directory and releases it.
+     *
+     * @param name the name of the recording
+     * @return the stopped recording, with the file written
+     * @throws RecordingNotFoundException if no active recording has the given name
+     */
+    public RecordingInfo stopRecording(final String name) throws RecordingNotFoundException {
+        Recording recording = getRecording(name);
+
+        try {
+            recording.stop();
+            dump(name, recording);
+
+            return toInfo(name, recording);
+        } finally {
+            recordings.remove(name, recording);
+            recording.close();
+            log.info("Flight recording stopped {name: {}, file: {}}", name, dumpFiles.get(name));
+        }
+    }
+
+    /**
+     * Lists the active recordings, oldest first.
+     *
+     * @return the active recordings
+     */
+    public List<RecordingInfo> getRecordings() {
+        return recordings.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().getId()))
+                .map(entry -> toInfo(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    @PreDestroy
+    void closeRecordings() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    private Recording getRecording(final String name) throws RecordingNotFoundException {
+        Recording recording = recordings.get(name);
+
+        if (recording == null) {
+            throw new RecordingNotFoundException(String.format("Recording not found {name: %s}", name));
+        }
+
+        return recording;
+    }
+
+    private void dump(final String name, final Recording recording) {
+        Path file = Path.of(directory).toAbsolutePath()
+                .resolve(name + "-" + FILE_TIMESTAMP.format(ZonedDateTime.now(ZoneOffset.UTC)) + ".jfr");
+
+        try {
+            Files.createDirectories(file.getParent());
+            recording.dump(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        dumpFiles.put(name, file);
+    }
+
+    private RecordingInfo toInfo(final String name, final Recording recording) {
+        Duration maxAge = recording.getMaxAge();
+        Path dumpFile = dumpFiles.get(name);
+
+        return new RecordingInfo(name, recording.getId(), recording.getState().name(), recording.getStartTime(),
+                maxAge != null ? maxAge.toSeconds() : 0, recording.getMaxSize(),
+                dumpFile != null ? dumpFile.toString() : null);
+    }
+
+    private static void validateName(final String name) throws InvalidDataException {
+        if (name == null || !RECORDING_NAME.matcher(name).matches()) {
+            throw new InvalidDataException(String.format("Invalid recording name {name: %s}", name));
+        }
+    }
+
+    /**
+     * The JDK default settings with the bundled payment profile applied on top.
+     */
+    static Map<String, String> settings() {
+        try (InputStream in = FlightRecorderService.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Flight recorder settings not found: " + SETTINGS_RESOURCE);
+            }
+
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+
+            return settings;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (ParseException ex) {
+            throw new IllegalStateException("Flight recorder settings could not be parsed: " + SETTINGS_RESOURCE, ex);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package za.graham.Installment.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import za.graham.Installment.model.InstallmentSchedule;
+import za.graham.Installment.service.InstallmentService;
+import za.graham.Loan.exception.LoanNotFoundException;
+import za.graham.common.api.ApiError;
+
+/**
+ * REST controller that reports the debit order installment schedule of a loan.
+ */
+@RestController
+@RequestMapping("/installments")
+public class InstallmentController {
+
+    @Autowired
+    InstallmentService installmentService;
+
+    /**
+     * Retrieves the installment schedule of a loan, including its next due date and collection progress.
+     *
+     * @param loanId the unique identifier of the loan
+     * @return 200 OK: with the schedule, 404 Not Found: if no schedule exists for the given loan ID
+     */
+    @GetMapping
+    public ResponseEntity<?> getSchedule(@RequestParam String loanId) {
+        InstallmentSchedule schedule;
+
+        try {
+            schedule = installmentService.getSchedule(loanId);
+        } catch (LoanNotFoundException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.NOT_FOUND, ex);
+        }
+
+        return new ResponseEntity<>(schedule, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,11 @@
+package za.graham.Installment.event;
+
+/**
+ * In-process event published once an installment has been collected from a loan by debit order.
+ * Lets read models follow the installment count without reading the schedule.
+ *
+ * @param loanId the unique identifier of the loan
+ * @param installment the number of the installment collected, counting from 1
+ */
+public record InstallmentCollectedEvent(String loanId, int installment) {
+}
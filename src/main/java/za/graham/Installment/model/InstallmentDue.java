@@ -0,0 +1,12 @@
+package za.graham.Installment.model;
+
+import java.time.Instant;
+
+/**
+ * Flat projection of an active schedule's next due date, used to reload the timing wheel on startup.
+ *
+ * @param loanId the unique identifier of the loan
+ * @param nextDueDate the time the next installment falls due
+ */
+public record InstallmentDue(String loanId, Instant nextDueDate) {
+}
@@ -0,0 +1,74 @@
+package za.graham.Installment.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * JPA entity representing the monthly installment schedule of a loan, collected by debit order.
+ * <p>
+ * Installment {n} falls due {n} months after the loan was created. Only the next due date is stored, so a loan
+ * has one row however long its term.
+ */
+@Entity
+@Table(name = "installment_schedules", indexes = {
+        @Index(name = "idx_installment_schedules_due", columnList = "status, nextDueDate")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstallmentSchedule {
+    @Id
+    private String loanId;
+
+    private Double loanAmount;
+
+    private Integer term;
+
+    private Double installmentAmount;
+
+    private Instant createdDate;
+
+    /**
+     * The number of installments claimed for collection so far.
+     */
+    private int installmentsCollected;
+
+    private Instant nextDueDate;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    /**
+     * The outcome of the most recent collection attempt, either {SUCCESS} or the name of the exception that
+     * rejected it.
+     */
+    private String lastOutcome;
+
+    public enum Status {
+        ACTIVE,
+        COMPLETED,
+        CANCELLED
+    }
+
+    /**
+     * Returns the due date of installment {installment}, counting from 1.
+     */
+    public Instant dueDate(final int installment) {
+        return createdDate.atZone(ZoneOffset.UTC).plusMonths(installment).toInstant();
+    }
+
+    /**
+     * Returns the amount collected for installment {installment} while {outstanding} is still owed: the installment
+     * amount capped at the balance, or the whole balance on the final installment so rounding never leaves it open.
+     */
+    public double amountDue(final int installment, final double outstanding) {
+        return installment >= term ? outstanding : Math.min(installmentAmount, outstanding);
+    }
+}
@@ -0,0 +1,23 @@
+package za.graham.Installment.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import za.graham.Installment.model.InstallmentDue;
+import za.graham.Installment.model.InstallmentSchedule;
+import za.graham.Loan.model.Loan;
+
+import java.util.List;
+
+public interface InstallmentScheduleRepository extends JpaRepository<InstallmentSchedule, String> {
+
+    @Query("select new za.graham.Installment.model.InstallmentDue(s.loanId, s.nextDueDate) from InstallmentSchedule s " +
+            "where s.status = za.graham.Installment.model.InstallmentSchedule.Status.ACTIVE and s.loanId > :afterLoanId " +
+            "order by s.loanId")
+    List<InstallmentDue> findActiveAfter(String afterLoanId, Limit limit);
+
+    @Query("select l from Loan l where l.status = za.graham.Loan.model.Loan.Status.ACTIVE and l.loanId > :afterLoanId " +
+            "and not exists (select s.loanId from InstallmentSchedule s where s.loanId = l.loanId) order by l.loanId")
+    List<Loan> findActiveLoansWithoutSchedule(String afterLoanId, Limit limit);
+
+}
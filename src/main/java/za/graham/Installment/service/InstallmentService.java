@@ -0,0 +1,507 @@
+package za.graham.Installment.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.graham.Installment.event.InstallmentCollectedEvent;
+import za.graham.Installment.model.InstallmentDue;
+import za.graham.Installment.model.InstallmentSchedule;
+import za.graham.Installment.repository.InstallmentScheduleRepository;
+import za.graham.Loan.event.LoanCreatedEvent;
+import za.graham.Loan.exception.LoanAlreadySettledException;
+import za.graham.Loan.exception.LoanNotFoundException;
+import za.graham.Loan.model.Loan;
+import za.graham.Payment.model.LoanPaymentRecord;
+import za.graham.Payment.model.PaymentOutcome;
+import za.graham.Payment.repository.PaymentRepository;
+import za.graham.Payment.service.PaymentService;
+import za.graham.common.exception.InvalidDataException;
+import za.graham.common.money.Balance;
+import za.graham.common.money.Cents;
+import za.graham.common.timing.TimingWheel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Collects loan installments by debit order on their due dates.
+ * <p>
+ * A schedule is persisted for every new loan, and each active schedule's next due date is held in memory in a
+ * {TimingWheel}, so finding due installments never polls the database and registering one is constant time however
+ * many are pending. A single ticker thread owns the wheel: it takes new registrations from a lock-free queue, advances
+ * the wheel once per {installments.tick} and collects whatever fell due in batches of {installments.batch-size},
+ * paying each loan through {PaymentService} on a pool of {installments.workers} threads. On startup the wheel is
+ * reloaded from the active schedules.
+ * <p>
+ * Each installment is claimed, by advancing the schedule's next due date, before it is paid. A crash between the
+ * two skips that installment rather than risking a double debit; the final installment always collects the whole
+ * outstanding balance, so a skipped installment is recovered at the end of the term.
+ */
+@Service
+public class InstallmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(InstallmentService.class);
+
+    private static final int WHEEL_BITS = 6;
+
+    private static final int WHEEL_LEVELS = 6;
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    static final String SUCCESS = "SUCCESS";
+
+    static final String SETTLED = "SETTLED";
+
+    @Autowired
+    InstallmentScheduleRepository installmentScheduleRepository;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    PaymentService paymentService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${installments.enabled:true}")
+    boolean enabled = true;
+
+    @Value("${installments.tick:PT1S}")
+    Duration tick = Duration.ofSeconds(1);
+
+    @Value("${installments.batch-size:500}")
+    int batchSize = 500;
+
+    @Value("${installments.workers:8}")
+    int workers = 8;
+
+    @Value("${installments.retry-delay:PT1H}")
+    Duration retryDelay = Duration.ofHours(1);
+
+    Clock clock = Clock.systemUTC();
+
+    private final Queue<InstallmentDue> registrations = new ConcurrentLinkedQueue<>();
+
+    private TimingWheel<String> wheel;
+
+    private volatile long pending;
+
+    private volatile boolean running;
+
+    private Thread tickerThread;
+
+    private ExecutorService paymentWorkers;
+
+    @PostConstruct
+    void init() {
+        paymentWorkers = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "installment-collector");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("installments.pending", this, service -> service.pending)
+                .description("Installments waiting in the timing wheel for their due date")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reloads the active schedules into the timing wheel and starts the ticker, once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+
+        running = true;
+        tickerThread = new Thread(this::runTicker, "installment-ticker");
+        tickerThread.setDaemon(true);
+        tickerThread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (running) {
+            running = false;
+            LockSupport.unpark(tickerThread);
+
+            try {
+                tickerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        paymentWorkers.shutdown();
+    }
+
+    /**
+     * Persists the installment schedule of a new loan and registers its first due date.
+     * This runs inside {LoanService.createLoan} after the loan is saved, so a failure is logged rather than failing
+     * the request; the missing schedule is created on the next startup.
+     */
+    @EventListener
+    public void onLoanCreated(final LoanCreatedEvent event) {
+        InstallmentSchedule schedule = newSchedule(event.loanId(), event.loanAmount(), event.term(), event.createdDate());
+
+        try {
+            installmentScheduleRepository.save(schedule);
+        } catch (RuntimeException ex) {
+            log.error("Installment schedule could not be saved, it will be created on the next startup {loanId: {}}",
+                    event.loanId(), ex);
+            return;
+        }
+
+        register(schedule.getLoanId(), schedule.getNextDueDate());
+    }
+
+    private static InstallmentSchedule newSchedule(final String loanId, final double loanAmount, final int term,
+                                                   final Instant createdDate) {
+        InstallmentSchedule schedule = InstallmentSchedule.builder()
+                .loanId(loanId)
+                .loanAmount(loanAmount)
+                .term(term)
+                .installmentAmount(installmentAmount(loanAmount, term))
+                .createdDate(createdDate)
+                .status(InstallmentSchedule.Status.ACTIVE)
+                .build();
+        schedule.setNextDueDate(schedule.dueDate(1));
+
+        return schedule;
+    }
+
+    /**
+     * The loan amount spread evenly over the term, rounded to the cent but never below one cent, so even a very
+     * small loan is collected a cent at a time until the final installment collects the rest.
+     */
+    public static double installmentAmount(final double loanAmount, final int term) {
+        return Cents.toAmount(Math.max(1, Cents.toCents(loanAmount / term)));
+    }
+
+    /**
+     * Retrieves the installment schedule of a loan.
+     *
+     * @param loanId the unique identifier of the loan
+     * @return the {InstallmentSchedule} of the loan
+     * @throws LoanNotFoundException if no schedule exists for the given loan ID
+     */
+    public InstallmentSchedule getSchedule(final String loanId) throws LoanNotFoundException {
+        return installmentScheduleRepository.findById(loanId).orElseThrow(() -> new LoanNotFoundException(
+                String.format("Installment schedule not found {loanId: %s}", loanId)));
+    }
+
+    private void register(final String loanId, final Instant dueDate) {
+        if (enabled) {
+            registrations.add(new InstallmentDue(loanId, dueDate));
+        }
+    }
+
+    private void runTicker() {
+        try {
+            loadActiveSchedules(clock.millis());
+        } catch (RuntimeException ex) {
+            log.error("Installment schedules could not be loaded, only new registrations will be collected", ex);
+        }
+
+        long tickNanos = tick.toNanos();
+
+        while (running) {
+            try {
+                collectDue();
+            } catch (RuntimeException ex) {
+                // Keep ticking: a dead ticker thread would silently stop every future collection
+                log.error("Installment tick failed", ex);
+            }
+
+            LockSupport.parkNanos(tickNanos);
+        }
+    }
+
+    private void collectDue() {
+        List<String> due = advance(clock.millis());
+
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<String> loanIds = due.subList(from, Math.min(due.size(), from + batchSize));
+
+            try {
+                collectBatch(loanIds);
+            } catch (RuntimeException ex) {
+                log.error("Installment batch could not be collected, retrying in {} {size: {}}", retryDelay,
+                        loanIds.size(), ex);
+                Instant retryDate = clock.instant().plus(retryDelay);
+                loanIds.forEach(loanId -> register(loanId, retryDate));
+            }
+        }
+    }
+
+    /**
+     * Creates the timing wheel at {nowMillis} and loads the next due date of every active schedule into it,
+     * a page at a time, after creating the schedules of any active loans that do not have one.
+     * The wheel is created first, so new registrations are still collected if loading fails.
+     */
+    void loadActiveSchedules(final long nowMillis) {
+        wheel = new TimingWheel<>(WHEEL_BITS, WHEEL_LEVELS, nowMillis / tick.toMillis());
+        pending = 0;
+
+        try {
+            createMissingSchedules();
+        } catch (RuntimeException ex) {
+            log.error("Missing installment schedules could not be created, retrying on the next startup", ex);
+        }
+
+        long start = System.nanoTime();
+        String afterLoanId = "";
+        long loaded = 0;
+
+        while (true) {
+            List<InstallmentDue> page = installmentScheduleRepository.findActiveAfter(afterLoanId, Limit.of(LOAD_PAGE_SIZE));
+
+            for (InstallmentDue due : page) {
+                wheel.schedule(due.loanId(), deadlineTick(due.nextDueDate()));
+            }
+
+            loaded += page.size();
+
+            if (page.size() < LOAD_PAGE_SIZE) {
+                break;
+            }
+
+            afterLoanId = page.get(page.size() - 1).loanId();
+        }
+
+        pending = wheel.size();
+        log.info("Installment schedules loaded {schedules: {}, elapsedMillis: {}}", loaded,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Creates schedules for active loans that have none, such as loans whose schedule could not be saved when they
+     * were created.
+     */
+    private void createMissingSchedules() {
+        String afterLoanId = "";
+        long created = 0;
+
+        while (true) {
+            List<Loan> loans = installmentScheduleRepository.findActiveLoansWithoutSchedule(afterLoanId,
+                    Limit.of(LOAD_PAGE_SIZE));
+
+            installmentScheduleRepository.saveAll(loans.stream()
+                    .map(loan -> newSchedule(loan.getLoanId(), loan.getLoanAmount(), loan.getTerm(), loan.getCreatedDate()))
+                    .toList());
+            created += loans.size();
+
+            if (loans.size() < LOAD_PAGE_SIZE) {
+                break;
+            }
+
+            afterLoanId = loans.get(loans.size() - 1).getLoanId();
+        }
+
+        if (created > 0) {
+            log.warn("Missing installment schedules created {schedules: {}}", created);
+        }
+    }
+
+    /**
+     * Adds queued registrations to the wheel and advances it to {nowMillis}.
+     *
+     * @return the loan IDs whose installment has fallen due
+     */
+    List<String> advance(final long nowMillis) {
+        InstallmentDue registration;
+
+        while ((registration = registrations.poll()) != null) {
+            wheel.schedule(registration.loanId(), deadlineTick(registration.nextDueDate()));
+        }
+
+        List<String> due = new ArrayList<>();
+        wheel.advanceTo(nowMillis / tick.toMillis(), due::add);
+        pending = wheel.size();
+
+        return due;
+    }
+
+    /**
+     * The first tick at or after {dueDate}, so an installment never fires early.
+     */
+    private long deadlineTick(final Instant dueDate) {
+        long tickMillis = tick.toMillis();
+        return Math.floorDiv(dueDate.toEpochMilli() + tickMillis - 1, tickMillis);
+    }
+
+    /**
+     * Collects the due installment of each loan: claims them in one transaction, pays them in parallel, then
+     * records the outcomes in a second transaction and registers each schedule's next due date.
+     * Loans whose schedule is no longer active, or whose next installment is not yet due, are skipped.
+     *
+     * @param loanIds the loans whose installment fell due
+     * @return the number of installments collected
+     */
+    int collectBatch(final List<String> loanIds) {
+        Instant now = clock.instant();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Claim> claims = transaction.execute(status -> claim(loanIds, now));
+
+        if (claims.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Future<PaymentOutcome>> results = new HashMap<>();
+
+        for (Claim claim : claims) {
+            results.put(claim.loanId(), paymentWorkers.submit(() ->
+                    paymentService.processLoanPayments(claim.loanId(), List.of(claim.amount())).get(0)));
+        }
+
+        Map<String, PaymentOutcome> outcomes = new HashMap<>();
+
+        results.forEach((loanId, result) -> {
+            try {
+                outcomes.put(loanId, result.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                outcomes.put(loanId, new PaymentOutcome(null, new IllegalStateException(ex)));
+            } catch (ExecutionException ex) {
+                outcomes.put(loanId, new PaymentOutcome(null, ex.getCause() instanceof RuntimeException cause
+                        ? cause : new IllegalStateException(ex.getCause())));
+            }
+        });
+
+        List<InstallmentDue> next;
+
+        try {
+            next = transaction.execute(status -> recordOutcomes(claims, outcomes, now));
+        } catch (RuntimeException ex) {
+            // The claims were committed, so carry on from them; only the outcomes are lost
+            log.error("Installment outcomes could not be recorded {size: {}}", claims.size(), ex);
+            next = claims.stream().map(claim -> new InstallmentDue(claim.loanId(), claim.nextDueDate())).toList();
+        }
+
+        next.forEach(due -> register(due.loanId(), due.nextDueDate()));
+
+        for (Claim claim : claims) {
+            if (outcomes.get(claim.loanId()).isAccepted()) {
+                eventPublisher.publishEvent(new InstallmentCollectedEvent(claim.loanId(), claim.installment()));
+            }
+        }
+
+        long collected = outcomes.values().stream().filter(PaymentOutcome::isAccepted).count();
+        meterRegistry.counter("installments.collections", "outcome", "accepted").increment(collected);
+        meterRegistry.counter("installments.collections", "outcome", "rejected").increment(claims.size() - collected);
+
+        return (int) collected;
+    }
+
+    private List<Claim> claim(final List<String> loanIds, final Instant now) {
+        Map<String, List<Double>> paid = paymentRepository.findPaymentsByLoanIds(loanIds).stream()
+                .collect(Collectors.groupingBy(LoanPaymentRecord::loanId,
+                        Collectors.mapping(LoanPaymentRecord::paymentAmount, Collectors.toList())));
+        List<Claim> claims = new ArrayList<>();
+
+        for (InstallmentSchedule schedule : installmentScheduleRepository.findAllById(loanIds)) {
+            if (schedule.getStatus() != InstallmentSchedule.Status.ACTIVE || schedule.getNextDueDate().isAfter(now)) {
+                continue;
+            }
+
+            // Worked out exactly as PaymentService does, so the final installment is precisely what settles the loan
+            double outstanding = Balance.outstanding(schedule.getLoanAmount(),
+                    paid.getOrDefault(schedule.getLoanId(), List.of())).doubleValue();
+
+            if (outstanding <= 0) {
+                schedule.setStatus(InstallmentSchedule.Status.COMPLETED);
+                schedule.setLastOutcome(SETTLED);
+                continue;
+            }
+
+            int installment = schedule.getInstallmentsCollected() + 1;
+            double amount = schedule.amountDue(installment, outstanding);
+
+            schedule.setInstallmentsCollected(installment);
+            schedule.setNextDueDate(schedule.dueDate(installment + 1));
+            claims.add(new Claim(schedule.getLoanId(), amount, installment, schedule.getNextDueDate()));
+        }
+
+        return claims;
+    }
+
+    private List<InstallmentDue> recordOutcomes(final List<Claim> claims, final Map<String, PaymentOutcome> outcomes,
+                                                final Instant now) {
+        Map<String, InstallmentSchedule> schedules = installmentScheduleRepository
+                .findAllById(claims.stream().map(Claim::loanId).toList()).stream()
+                .collect(Collectors.toMap(InstallmentSchedule::getLoanId, schedule -> schedule));
+        List<InstallmentDue> next = new ArrayList<>(claims.size());
+
+        for (Claim claim : claims) {
+            InstallmentSchedule schedule = schedules.get(claim.loanId());
+            PaymentOutcome outcome = outcomes.get(claim.loanId());
+
+            if (schedule == null) {
+                continue;
+            }
+
+            if (outcome.isAccepted()) {
+                schedule.setLastOutcome(SUCCESS);
+
+                if (outcome.payment().isSettlesLoan()) {
+                    schedule.setStatus(InstallmentSchedule.Status.COMPLETED);
+                }
+            } else {
+                RuntimeException error = outcome.error();
+                schedule.setLastOutcome(error.getClass().getSimpleName());
+
+                if (error instanceof LoanAlreadySettledException) {
+                    schedule.setStatus(InstallmentSchedule.Status.COMPLETED);
+                } else if (error instanceof LoanNotFoundException || error instanceof InvalidDataException) {
+                    // Neither goes away by retrying, so stop collecting rather than failing every retry-delay
+                    schedule.setStatus(InstallmentSchedule.Status.CANCELLED);
+                    log.warn("Installment schedule cancelled {loanId: {}, installment: {}, error: {}}",
+                            claim.loanId(), claim.installment(), error.toString());
+                } else {
+                    // Release the claim and try the same installment again later
+                    schedule.setInstallmentsCollected(claim.installment() - 1);
+                    schedule.setNextDueDate(now.plus(retryDelay));
+                    log.warn("Installment collection failed, retrying in {} {loanId: {}, installment: {}, error: {}}",
+                            retryDelay, claim.loanId(), claim.installment(), error.toString());
+                }
+            }
+
+            if (schedule.getStatus() == InstallmentSchedule.Status.ACTIVE) {
+                next.add(new InstallmentDue(schedule.getLoanId(), schedule.getNextDueDate()));
+            }
+        }
+
+        return next;
+    }
+
+    /**
+     * An installment claimed for collection.
+     */
+    private record Claim(String loanId, double amount, int installment, Instant nextDueDate) {
+    }
+}
@@ -1,17 +1,26 @@
 package za.graham.Loan.controller;
 
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import za.graham.Loan.exception.LoanNotFoundException;
 import za.graham.Loan.model.Loan;
-import org.slf4j.Logger;
+import za.graham.Loan.model.LoanQuery;
+import za.graham.Loan.model.LoanQueryResult;
+import za.graham.Loan.model.LoanSearchCriteria;
+import za.graham.Loan.model.LoanSearchPage;
 import za.graham.Loan.service.LoanService;
 import za.graham.common.api.ApiError;
+import za.graham.common.audit.AuditEvent;
+import za.graham.common.audit.AuditLog;
 import za.graham.common.exception.InvalidDataException;
 
+import java.time.Instant;
+
 /**
  * REST controller that exposes endpoints for creating and retrieving loans.
  */
@@ -19,19 +28,31 @@ import za.graham.common.exception.InvalidDataException;
 @RequestMapping("/loans")
 public class LoanController {
 
-    private static final Logger log = LoggerFactory.getLogger(LoanController.class);
-
     @Autowired
     LoanService loanService;
 
+    @Autowired
+    AuditLog auditLog;
+
     /**
-     * Retrieves a loan by its unique ID.
+     * Retrieves a loan by its unique ID. The response carries a strong ETag derived from the loan's version, and a
+     * request whose {If-None-Match} still matches is answered with 304, from the loan cache when possible.
      *
      * @param loanId the unique identifier of the loan
-     * @return 200 OK: with the loan, 404 Not Found: if no loan exists with the given ID
+     * @return 200 OK: with the loan, 304 Not Modified: if the client's copy is current,
+     * 404 Not Found: if no loan exists with the given ID
      */
     @GetMapping
-    public ResponseEntity<?> getLoan(@RequestParam String loanId) {
+    public ResponseEntity<?> getLoan(@RequestParam String loanId,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Long cachedVersion = loanService.getCachedLoanVersion(loanId);
+
+            if (cachedVersion != null && eTagMatches(ifNoneMatch, eTag(loanId, cachedVersion))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(loanId, cachedVersion)).build();
+            }
+        }
+
         Loan loan;
 
         try {
@@ -40,7 +61,65 @@ public class LoanController {
             return ApiError.apiErrorResponseEntity(HttpStatus.NOT_FOUND, ex);
         }
 
-        return new ResponseEntity<>(loan, HttpStatus.OK);
+        // A matching If-None-Match is still turned into 304 here, saving the body when the cache was cold
+        return ResponseEntity.ok().eTag(eTag(loan.getLoanId(), loan.getVersion())).body(loan);
+    }
+
+    /**
+     * Retrieves many loans in one request. IDs with no loan are listed in {missingLoanIds}
+     * instead of failing the request.
+     *
+     * @param query the IDs of the loans to fetch
+     * @return 200 OK: with the loans found and the missing IDs, 400 Bad Request: if no IDs or too many are given
+     */
+    @PostMapping("/query")
+    public ResponseEntity<?> queryLoans(@RequestBody LoanQuery query) {
+        LoanQueryResult result;
+
+        try {
+            result = loanService.getLoans(query.loanIds());
+        } catch (InvalidDataException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
+        }
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Searches loans by status, creation date range and amount range, one keyset page at a time.
+     * Pass the {nextCursor} of a page, with the same filters and sort, to fetch the page after it.
+     *
+     * @param status only loans in this status
+     * @param createdFrom only loans created at or after this ISO-8601 instant
+     * @param createdTo only loans created before this ISO-8601 instant
+     * @param minAmount only loans of at least this amount
+     * @param maxAmount only loans of at most this amount
+     * @param sort the indexed column to order by: createdDate, loanAmount or loanId
+     * @param direction ASC or DESC
+     * @param limit the maximum number of loans per page
+     * @param cursor the cursor returned with the previous page
+     * @return 200 OK: with the page of loans, 400 Bad Request: if the filters, sort, limit or cursor are invalid
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchLoans(@RequestParam(required = false) Loan.Status status,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdFrom,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdTo,
+                                         @RequestParam(required = false) Double minAmount,
+                                         @RequestParam(required = false) Double maxAmount,
+                                         @RequestParam(defaultValue = "createdDate") String sort,
+                                         @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+                                         @RequestParam(defaultValue = "50") Integer limit,
+                                         @RequestParam(required = false) String cursor) {
+        LoanSearchPage page;
+
+        try {
+            page = loanService.searchLoans(new LoanSearchCriteria(status, createdFrom, createdTo, minAmount, maxAmount),
+                    sort, direction, limit, cursor);
+        } catch (InvalidDataException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
+        }
+
+        return new ResponseEntity<>(page, HttpStatus.OK);
     }
 
     /**
@@ -52,14 +131,37 @@ public class LoanController {
      */
     @PostMapping
     public ResponseEntity<?> postLoan(@RequestParam Double loanAmount, @RequestParam Integer term) {
+        long start = System.nanoTime();
         Loan createdLoan;
         try {
             createdLoan = loanService.createLoan(loanAmount, term);
-            log.info("Loan processed: {{}}", createdLoan);
         } catch (InvalidDataException ex) {
+            auditLog.record(AuditEvent.Action.LOAN_CREATED, null, null, loanAmount,
+                    HttpStatus.BAD_REQUEST.value(), ex.getClass().getSimpleName(), start);
             return ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
         }
 
+        auditLog.record(AuditEvent.Action.LOAN_CREATED, createdLoan.getLoanId(), null, loanAmount,
+                HttpStatus.CREATED.value(), AuditEvent.SUCCESS, start);
         return new ResponseEntity<>(createdLoan, HttpStatus.CREATED);
     }
+
+    private static String eTag(final String loanId, final Long version) {
+        return "\"" + loanId + "-" + (version != null ? version : 0) + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header lists the given ETag, using the weak comparison the header calls for.
+     */
+    private static boolean eTagMatches(final String ifNoneMatch, final String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+
+            if (trimmed.equals("*") || trimmed.equals(eTag) || (trimmed.startsWith("W/") && trimmed.substring(2).equals(eTag))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 }
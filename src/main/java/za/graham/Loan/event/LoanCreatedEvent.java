@@ -0,0 +1,14 @@
+package za.graham.Loan.event;
+
+import java.time.Instant;
+
+/**
+ * In-process event published once a new loan has been persisted.
+ *
+ * @param loanId the unique identifier of the loan
+ * @param loanAmount the principal amount of the loan
+ * @param term the repayment term in months
+ * @param createdDate the time the loan was created
+ */
+public record LoanCreatedEvent(String loanId, Double loanAmount, Integer term, Instant createdDate) {
+}
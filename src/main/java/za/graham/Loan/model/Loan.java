@@ -1,5 +1,6 @@
 package za.graham.Loan.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,9 +13,13 @@ import java.time.Instant;
  * JPA entity representing a loan.
  */
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+        @Index(name = "idx_loans_status_created", columnList = "status, createdDate, loanId"),
+        @Index(name = "idx_loans_created", columnList = "createdDate, loanId"),
+        @Index(name = "idx_loans_amount", columnList = "loanAmount, loanId")
+})
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Loan {
@@ -30,6 +35,13 @@ public class Loan {
 
     private Instant createdDate;
 
+    /**
+     * Optimistic locking version, incremented on every update; exposed to clients as the ETag rather than in the body.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     public enum Status {
         ACTIVE,
         SETTLED
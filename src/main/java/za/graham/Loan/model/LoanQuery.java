@@ -0,0 +1,11 @@
+package za.graham.Loan.model;
+
+import java.util.List;
+
+/**
+ * Request body of a multi-get of loans.
+ *
+ * @param loanIds the IDs of the loans to fetch
+ */
+public record LoanQuery(List<String> loanIds) {
+}
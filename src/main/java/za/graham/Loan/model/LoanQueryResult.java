@@ -0,0 +1,12 @@
+package za.graham.Loan.model;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get of loans.
+ *
+ * @param loans the loans found, in the order their IDs were requested
+ * @param missingLoanIds the requested IDs for which no loan exists, in the order they were requested
+ */
+public record LoanQueryResult(List<Loan> loans, List<String> missingLoanIds) {
+}
@@ -0,0 +1,16 @@
+package za.graham.Loan.model;
+
+import java.time.Instant;
+
+/**
+ * Filters for a loan search; {null} fields are not filtered on.
+ *
+ * @param status only loans in this status
+ * @param createdFrom only loans created at or after this instant
+ * @param createdTo only loans created before this instant
+ * @param minAmount only loans of at least this amount
+ * @param maxAmount only loans of at most this amount
+ */
+public record LoanSearchCriteria(Loan.Status status, Instant createdFrom, Instant createdTo, Double minAmount,
+                                 Double maxAmount) {
+}
@@ -0,0 +1,13 @@
+package za.graham.Loan.model;
+
+import java.util.List;
+
+/**
+ * One page of loan search results.
+ *
+ * @param loans the loans on this page, in the requested order
+ * @param hasNext whether another page follows, determined without counting the matching loans
+ * @param nextCursor the opaque cursor to pass for the next page, {null} on the last page
+ */
+public record LoanSearchPage(List<Loan> loans, boolean hasNext, String nextCursor) {
+}
@@ -1,7 +1,25 @@
 package za.graham.Loan.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import za.graham.Loan.model.Loan;
 
-public interface LoanRepository extends JpaRepository<Loan, String> {
+import java.time.Instant;
+import java.util.List;
+
+public interface LoanRepository extends JpaRepository<Loan, String>, JpaSpecificationExecutor<Loan> {
+
+    @Query("select l.loanId from Loan l order by l.loanId")
+    List<String> findLoanIdsOrdered(Pageable pageable);
+
+    @Query("select l from Loan l where l.loanId > :afterLoanId and (:lastLoanId is null or l.loanId <= :lastLoanId) " +
+            "and l.createdDate < :createdBefore order by l.loanId")
+    List<Loan> findLoanRange(String afterLoanId, String lastLoanId, Instant createdBefore, Limit limit);
+
+    @Query("select l.loanId from Loan l where l.loanId > :afterLoanId order by l.loanId")
+    List<String> findLoanIdsAfter(String afterLoanId, Limit limit);
+
 }
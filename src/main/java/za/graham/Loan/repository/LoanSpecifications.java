@@ -0,0 +1,52 @@
+package za.graham.Loan.repository;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.model.LoanSearchCriteria;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query specifications for searching loans. Every filter is on an indexed column.
+ */
+public final class LoanSpecifications {
+
+    private LoanSpecifications() {
+    }
+
+    /**
+     * Matches loans satisfying every filter set on the criteria; unset filters match everything.
+     *
+     * @param criteria the search filters
+     * @return the combined specification
+     */
+    public static Specification<Loan> matching(final LoanSearchCriteria criteria) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>(5);
+
+            if (criteria.status() != null) {
+                predicates.add(builder.equal(root.get("status"), criteria.status()));
+            }
+
+            if (criteria.createdFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("createdDate"), criteria.createdFrom()));
+            }
+
+            if (criteria.createdTo() != null) {
+                predicates.add(builder.lessThan(root.get("createdDate"), criteria.createdTo()));
+            }
+
+            if (criteria.minAmount() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("loanAmount"), criteria.minAmount()));
+            }
+
+            if (criteria.maxAmount() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("loanAmount"), criteria.maxAmount()));
+            }
+
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package za.graham.Loan.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import za.graham.Loan.model.Loan;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshot cache of loans kept up to date by {LoanService}, which performs every loan write.
+ * <p>
+ * Entries are copies, so callers that modify a loan they were given never change the cached state. Each snapshot
+ * carries the loan's JPA version, which lets conditional reads be answered without touching the database.
+ */
+@Component
+public class LoanCache {
+
+    @Value("${loans.cache.max-entries:100000}")
+    int maxEntries = 100_000;
+
+    private final Map<String, Loan> loans = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a copy of the cached loan.
+     *
+     * @param loanId the unique identifier of the loan
+     * @return the cached loan, or {null} if it is not cached
+     */
+    public Loan get(final String loanId) {
+        Loan loan = loans.get(loanId);
+        return loan != null ? copy(loan) : null;
+    }
+
+    /**
+     * Returns the version of the cached loan without copying it.
+     *
+     * @param loanId the unique identifier of the loan
+     * @return the cached version, or {null} if the loan is not cached
+     */
+    public Long getVersion(final String loanId) {
+        Loan loan = loans.get(loanId);
+        return loan != null ? loan.getVersion() : null;
+    }
+
+    /**
+     * Caches a snapshot of a loan as just read from or written to the database. A snapshot never replaces a newer
+     * version of the same loan, so a slow reader cannot overwrite a concurrent update.
+     *
+     * @param loan the persisted loan
+     */
+    public void put(final Loan loan) {
+        if (loan == null || loan.getLoanId() == null || loan.getVersion() == null) {
+            return;
+        }
+
+        if (loans.size() >= maxEntries && !loans.containsKey(loan.getLoanId())) {
+            evict();
+        }
+
+        Loan snapshot = copy(loan);
+
+        loans.merge(loan.getLoanId(), snapshot,
+                (cached, updated) -> updated.getVersion() >= cached.getVersion() ? updated : cached);
+    }
+
+    /**
+     * Drops a loan from the cache, e.g. when it is moved out of the loan table.
+     *
+     * @param loanId the unique identifier of the loan
+     */
+    public void evict(final String loanId) {
+        loans.remove(loanId);
+    }
+
+    public int size() {
+        return loans.size();
+    }
+
+    /**
+     * Frees space by dropping about a quarter of the entries; the cache only saves reads, so any entry may go.
+     */
+    private void evict() {
+        int toRemove = Math.max(1, maxEntries / 4);
+        Iterator<String> loanIds = loans.keySet().iterator();
+
+        while (toRemove-- > 0 && loanIds.hasNext()) {
+            loanIds.next();
+            loanIds.remove();
+        }
+    }
+
+    private static Loan copy(final Loan loan) {
+        return loan.toBuilder().build();
+    }
+}
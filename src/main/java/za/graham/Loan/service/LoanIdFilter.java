@@ -0,0 +1,215 @@
+package za.graham.Loan.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import za.graham.Archive.repository.ArchivedLoanRepository;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.common.bloom.BloomFilter;
+import za.graham.common.generator.UniqueIdGenerator;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bloom filter of every loan ID, live and archived, so lookups of IDs that were never issued can be rejected
+ * without a database read.
+ * <p>
+ * The filter is built from the loan tables at startup and rebuilt every {loans.id-filter.rebuild-interval}, which
+ * also resizes it as the book grows; {LoanService} adds each new loan as it is created. Until the first build
+ * finishes, and whenever the filter is disabled, every ID is reported as possibly present. IDs added while a
+ * rebuild is scanning the tables go into both the old and the new filter, so none are lost in the swap.
+ * <p>
+ * Another instance's loans only reach this filter at the next rebuild, so the filter never rules out an ID issued
+ * after the last rebuild began, less {loans.id-filter.recent-id-margin} for clock skew between instances and
+ * transactions still open during the scan. Those IDs always go to the database.
+ */
+@Component
+public class LoanIdFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanIdFilter.class);
+
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${loans.id-filter.enabled:true}")
+    boolean enabled = true;
+
+    @Value("${loans.id-filter.expected-loans:1000000}")
+    long expectedLoans = 1_000_000;
+
+    @Value("${loans.id-filter.false-positive-rate:0.01}")
+    double falsePositiveRate = 0.01;
+
+    @Value("${loans.id-filter.recent-id-margin:PT1M}")
+    Duration recentIdMargin = Duration.ofMinutes(1);
+
+    private volatile BloomFilter filter;
+
+    private volatile long builtFromMillis;
+
+    private volatile BloomFilter rebuilding;
+
+    private Counter rejected;
+
+    private Counter passed;
+
+    private Counter recent;
+
+    private Counter falsePositives;
+
+    @PostConstruct
+    void registerMetrics() {
+        rejected = meterRegistry.counter("loans.id-filter.lookups", "result", "rejected");
+        passed = meterRegistry.counter("loans.id-filter.lookups", "result", "passed");
+        recent = meterRegistry.counter("loans.id-filter.lookups", "result", "recent");
+        falsePositives = meterRegistry.counter("loans.id-filter.false-positives");
+
+        Gauge.builder("loans.id-filter.false-positive-rate", this, LoanIdFilter::observedFalsePositiveRate)
+                .description("Share of lookups for missing loan IDs that the filter let through to the database")
+                .register(meterRegistry);
+        Gauge.builder("loans.id-filter.expected-false-positive-rate", this, LoanIdFilter::expectedFalsePositiveRate)
+                .description("False-positive rate estimated from the fraction of filter bits set")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a loan with this ID might exist. {false} means it definitely does not.
+     *
+     * @param loanId the unique identifier of the loan
+     * @return {false} only if no loan with this ID was created before the filter was built
+     */
+    public boolean mightContain(final String loanId) {
+        // Read the cutoff before the filter; see rebuild
+        long cutoff = builtFromMillis - recentIdMargin.toMillis();
+        BloomFilter current = filter;
+
+        if (!enabled || current == null) {
+            return true;
+        }
+
+        if (current.mightContain(loanId)) {
+            passed.increment();
+            return true;
+        }
+
+        if (UniqueIdGenerator.issuedAtMillis(loanId).orElse(Long.MIN_VALUE) >= cutoff) {
+            recent.increment();
+            return true;
+        }
+
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Adds a newly created loan. Must be called after the loan is committed, so a concurrent rebuild either reads it
+     * from the table or sees it here.
+     *
+     * @param loanId the unique identifier of the loan
+     */
+    public void add(final String loanId) {
+        // Read in the opposite order to the swap in rebuild, so an add racing the swap reaches the new filter
+        BloomFilter next = rebuilding;
+        BloomFilter current = filter;
+
+        if (current != null) {
+            current.add(loanId);
+        }
+
+        if (next != null) {
+            next.add(loanId);
+        }
+    }
+
+    /**
+     * Records that an ID the filter let through turned out not to exist.
+     */
+    public void recordFalsePositive() {
+        if (enabled && filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Rebuilds the filter on startup and then every {loans.id-filter.rebuild-interval}.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${loans.id-filter.rebuild-interval:PT6H}")
+    void rebuildOnSchedule() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Builds a new filter from every live and archived loan ID and swaps it in, sized for the current book.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        long loanCount = loanRepository.count() + archivedLoanRepository.count();
+        BloomFilter next = new BloomFilter(Math.max(expectedLoans, loanCount + loanCount / 4), falsePositiveRate);
+
+        rebuilding = next;
+
+        try {
+            long added = addAll(next, afterLoanId -> loanRepository.findLoanIdsAfter(afterLoanId, Limit.of(REBUILD_PAGE_SIZE)))
+                    + addAll(next, afterLoanId -> archivedLoanRepository.findLoanIdsAfter(afterLoanId, Limit.of(REBUILD_PAGE_SIZE)));
+
+            // Swap the filter before the cutoff, the reverse of mightContain, so no lookup pairs the new cutoff
+            // with the old filter
+            filter = next;
+            builtFromMillis = startMillis;
+
+            log.info("Loan ID filter rebuilt {loans: {}, bits: {}, hashes: {}, elapsedMillis: {}}", added,
+                    next.bitCount(), next.hashCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private static long addAll(final BloomFilter target, final Function<String, List<String>> pageAfter) {
+        long added = 0;
+        String afterLoanId = "";
+
+        while (true) {
+            List<String> loanIds = pageAfter.apply(afterLoanId);
+            loanIds.forEach(target::add);
+            added += loanIds.size();
+
+            if (loanIds.size() < REBUILD_PAGE_SIZE) {
+                return added;
+            }
+
+            afterLoanId = loanIds.get(loanIds.size() - 1);
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double missing = rejected.count() + falsePositives.count();
+        return missing == 0 ? 0 : falsePositives.count() / missing;
+    }
+
+    private double expectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.expectedFalsePositiveRate();
+    }
+}
@@ -0,0 +1,94 @@
+package za.graham.Loan.service;
+
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import za.graham.Loan.model.Loan;
+import za.graham.common.exception.InvalidDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keyset position of the last loan on a search page: the value of the sort column and the loan ID that breaks ties.
+ * Encoded for clients as an opaque URL-safe string, together with the sort it belongs to so that a cursor cannot be
+ * replayed against a different ordering.
+ */
+record LoanSearchCursor(String sortField, Sort.Direction direction, String sortValue, String loanId) {
+
+    static final String LOAN_ID = "loanId";
+
+    static final String CREATED_DATE = "createdDate";
+
+    static final String LOAN_AMOUNT = "loanAmount";
+
+    private static final char SEPARATOR = '\n';
+
+    static LoanSearchCursor after(final Loan loan, final String sortField, final Sort.Direction direction) {
+        String sortValue = switch (sortField) {
+            case CREATED_DATE -> loan.getCreatedDate().toString();
+            case LOAN_AMOUNT -> loan.getLoanAmount().toString();
+            default -> loan.getLoanId();
+        };
+
+        return new LoanSearchCursor(sortField, direction, sortValue, loan.getLoanId());
+    }
+
+    /**
+     * Decodes a cursor produced by {encode} for the same sort.
+     *
+     * @throws InvalidDataException if the cursor is malformed or was issued for a different sort
+     */
+    static LoanSearchCursor decode(final String cursor, final String sortField, final Sort.Direction direction)
+            throws InvalidDataException {
+        String[] parts;
+
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(String.valueOf(SEPARATOR), -1);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidDataException("Invalid search cursor", ex);
+        }
+
+        if (parts.length != 4) {
+            throw new InvalidDataException("Invalid search cursor");
+        }
+
+        if (!parts[0].equals(sortField) || !parts[1].equals(direction.name())) {
+            throw new InvalidDataException("Search cursor does not match the requested sort");
+        }
+
+        return new LoanSearchCursor(sortField, direction, parts[2], parts[3]);
+    }
+
+    String encode() {
+        String raw = sortField + SEPARATOR + direction.name() + SEPARATOR + sortValue + SEPARATOR + loanId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The keyset position to continue scrolling after this loan, with the sort value restored to its column type.
+     *
+     * @throws InvalidDataException if the sort value cannot be parsed
+     */
+    ScrollPosition toScrollPosition() throws InvalidDataException {
+        Map<String, Object> keys = new LinkedHashMap<>();
+
+        try {
+            switch (sortField) {
+                case CREATED_DATE -> keys.put(CREATED_DATE, Instant.parse(sortValue));
+                case LOAN_AMOUNT -> keys.put(LOAN_AMOUNT, Double.valueOf(sortValue));
+                default -> {
+                }
+            }
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            throw new InvalidDataException("Invalid search cursor", ex);
+        }
+
+        keys.put(LOAN_ID, loanId);
+        return ScrollPosition.forward(keys);
+    }
+}
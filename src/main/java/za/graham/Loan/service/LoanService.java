@@ -3,14 +3,36 @@ package za.graham.Loan.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import za.graham.Archive.model.ArchivedLoan;
+import za.graham.Archive.repository.ArchivedLoanRepository;
+import za.graham.Loan.event.LoanCreatedEvent;
 import za.graham.common.exception.InvalidDataException;
 import za.graham.Loan.exception.LoanNotFoundException;
 import za.graham.Loan.model.Loan;
+import za.graham.Loan.model.LoanQueryResult;
+import za.graham.Loan.model.LoanSearchCriteria;
+import za.graham.Loan.model.LoanSearchPage;
+import za.graham.common.flightrecorder.FlightRecorderEvents;
+import za.graham.common.flightrecorder.LoanCreationEvent;
+import za.graham.common.flightrecorder.LoanLookupEvent;
 import za.graham.common.generator.UniqueIdGenerator;
 import za.graham.Loan.repository.LoanRepository;
+import za.graham.Loan.repository.LoanSpecifications;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service layer responsible for loan creation and retrieval business logic.
@@ -20,12 +42,33 @@ public class LoanService {
 
     private static final Logger log = LoggerFactory.getLogger(LoanService.class);
 
+    private static final List<String> SEARCH_SORT_FIELDS =
+            List.of(LoanSearchCursor.CREATED_DATE, LoanSearchCursor.LOAN_AMOUNT, LoanSearchCursor.LOAN_ID);
+
+    private static final int MAX_SEARCH_LIMIT = 500;
+
+    private static final int MAX_QUERY_LOAN_IDS = 1000;
+
+    private static final int QUERY_CHUNK_SIZE = 250;
+
     @Autowired
     LoanRepository loanRepository;
 
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    LoanCache loanCache;
+
+    @Autowired
+    ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    LoanIdFilter loanIdFilter;
+
     /**
      * Creates a new loan with an auto-generated ID, sets its status to ACTIVE,
-     * and persists it to the database.
+     * persists it to the database and publishes a {LoanCreatedEvent}.
      *
      * @param amount the main loan amount
      * @param term the repayment term in months
@@ -33,40 +76,263 @@ public class LoanService {
      * @throws InvalidDataException if the loan has an invalid amount or term
      */
     public Loan createLoan(final Double amount, final Integer term) throws InvalidDataException {
+        LoanCreationEvent event = new LoanCreationEvent();
+        event.begin();
+        String loanId = null;
+        long persist = 0;
+        String outcome = null;
 
-        if (amount <= 0) {
-            throw new InvalidDataException("Loan amount cannot be zero or less");
-        }
+        try {
+            if (amount <= 0) {
+                throw new InvalidDataException("Loan amount cannot be zero or less");
+            }
 
-        if (term <= 0) {
-            throw new InvalidDataException("Loan term cannot be zero or less");
-        }
+            if (term <= 0) {
+                throw new InvalidDataException("Loan term cannot be zero or less");
+            }
+
+            Loan loan = Loan.builder()
+                    .loanId(UniqueIdGenerator.generateUniqueId("LOAN"))
+                    .loanAmount(amount)
+                    .term(term)
+                    .status(Loan.Status.ACTIVE)
+                    .createdDate(Instant.now())
+                    .build();
+
+            long persistStart = System.nanoTime();
+            Loan savedLoan = loanRepository.save(loan);
+            persist = System.nanoTime() - persistStart;
+            loanCache.put(savedLoan);
+            loanIdFilter.add(savedLoan.getLoanId());
 
-        Loan loan = Loan.builder()
-                .loanId(UniqueIdGenerator.generateUniqueId("LOAN"))
-                .loanAmount(amount)
-                .term(term)
-                .status(Loan.Status.ACTIVE)
-                .createdDate(Instant.now())
-                .build();
+            eventPublisher.publishEvent(new LoanCreatedEvent(savedLoan.getLoanId(), savedLoan.getLoanAmount(),
+                    savedLoan.getTerm(), savedLoan.getCreatedDate()));
 
-        return loanRepository.save(loan);
+            loanId = savedLoan.getLoanId();
+            outcome = FlightRecorderEvents.SUCCESS;
+            return savedLoan;
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.loanAmount = amount != null ? amount : 0;
+                event.term = term != null ? term : 0;
+                event.loanId = loanId;
+                event.persist = persist;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
     }
 
     /**
-     * Retrieves a loan by its unique ID.
+     * Retrieves a loan by its unique ID, falling back to the archive for settled loans
+     * that have been moved out of the live table. IDs the {LoanIdFilter} knows were never
+     * issued are rejected without a database read.
      *
      * @param loanId the unique identifier of the loan
      * @return the matching {Loan} entity
      * @throws LoanNotFoundException if no loan exists with the given ID
      */
     public Loan getLoan(final String loanId) throws LoanNotFoundException {
-        Loan loan = loanRepository.findById(loanId).orElse(null);
+        LoanLookupEvent event = new LoanLookupEvent();
+        event.begin();
+
+        Loan loan = null;
+
+        if (loanIdFilter.mightContain(loanId)) {
+            loan = loanRepository.findById(loanId)
+                    .or(() -> archivedLoanRepository.findById(loanId).map(ArchivedLoan::toLoan))
+                    .orElse(null);
+
+            if (loan == null) {
+                loanIdFilter.recordFalsePositive();
+            }
+        }
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.loanId = loanId;
+            event.outcome = loan != null ? FlightRecorderEvents.SUCCESS : LoanNotFoundException.class.getSimpleName();
+            event.commit();
+        }
 
         if (loan == null) {
+            loanCache.evict(loanId);
             throw new LoanNotFoundException(String.format("Loan not found {loanId: %s}", loanId));
         }
 
+        loanCache.put(loan);
         return loan;
     }
+
+    /**
+     * Retrieves many loans at once. Cached loans are served without touching the database, IDs the {LoanIdFilter}
+     * rules out are skipped, and the rest are read in chunks of {QUERY_CHUNK_SIZE} IDs per query, first from the
+     * live table and then from the archive.
+     * IDs with no loan are reported rather than failing the whole request.
+     *
+     * @param loanIds the unique identifiers of the loans; duplicates are returned once
+     * @return the {LoanQueryResult} with the loans found and the IDs that were not
+     * @throws InvalidDataException if no IDs, or more than {MAX_QUERY_LOAN_IDS}, are given
+     */
+    public LoanQueryResult getLoans(final List<String> loanIds) throws InvalidDataException {
+        if (loanIds == null || loanIds.isEmpty()) {
+            throw new InvalidDataException("At least one loanId is required");
+        }
+
+        if (loanIds.size() > MAX_QUERY_LOAN_IDS) {
+            throw new InvalidDataException(String.format("At most %d loans can be fetched at once", MAX_QUERY_LOAN_IDS));
+        }
+
+        Set<String> requested = new LinkedHashSet<>(loanIds);
+        requested.remove(null);
+
+        Map<String, Loan> found = new HashMap<>(requested.size() * 2);
+        List<String> uncached = new ArrayList<>();
+
+        for (String loanId : requested) {
+            Loan cached = loanCache.get(loanId);
+
+            if (cached != null) {
+                found.put(loanId, cached);
+            } else if (loanIdFilter.mightContain(loanId)) {
+                uncached.add(loanId);
+            }
+        }
+
+        for (int i = 0; i < uncached.size(); i += QUERY_CHUNK_SIZE) {
+            List<String> chunk = uncached.subList(i, Math.min(i + QUERY_CHUNK_SIZE, uncached.size()));
+
+            for (Loan loan : loanRepository.findAllById(chunk)) {
+                loanCache.put(loan);
+                found.put(loan.getLoanId(), loan);
+            }
+        }
+
+        List<String> notLive = uncached.stream().filter(loanId -> !found.containsKey(loanId)).toList();
+
+        for (int i = 0; i < notLive.size(); i += QUERY_CHUNK_SIZE) {
+            List<String> chunk = notLive.subList(i, Math.min(i + QUERY_CHUNK_SIZE, notLive.size()));
+
+            for (ArchivedLoan archivedLoan : archivedLoanRepository.findAllById(chunk)) {
+                Loan loan = archivedLoan.toLoan();
+                loanCache.put(loan);
+                found.put(loan.getLoanId(), loan);
+            }
+        }
+
+        notLive.stream()
+                .filter(loanId -> !found.containsKey(loanId))
+                .forEach(loanId -> loanIdFilter.recordFalsePositive());
+
+        List<Loan> loans = new ArrayList<>(found.size());
+        List<String> missingLoanIds = new ArrayList<>();
+
+        for (String loanId : requested) {
+            Loan loan = found.get(loanId);
+
+            if (loan != null) {
+                loans.add(loan);
+            } else {
+                missingLoanIds.add(loanId);
+            }
+        }
+
+        return new LoanQueryResult(loans, missingLoanIds);
+    }
+
+    /**
+     * Searches loans by status, creation date and amount, one keyset page at a time.
+     * Results are ordered by {sortField} and then by loan ID, so every page is an index range scan that starts
+     * where the previous page ended, and {LoanSearchPage.hasNext} is found by reading one row past the page
+     * instead of counting the matches.
+     *
+     * @param criteria the search filters
+     * @param sortField the indexed column to order by: {createdDate}, {loanAmount} or {loanId}
+     * @param direction the sort direction
+     * @param limit the maximum number of loans per page
+     * @param cursor the {nextCursor} of the previous page, or {null} for the first page
+     * @return the {LoanSearchPage} of matching loans
+     * @throws InvalidDataException if the filters, sort, limit or cursor are invalid
+     */
+    public LoanSearchPage searchLoans(final LoanSearchCriteria criteria, final String sortField,
+                                      final Sort.Direction direction, final int limit, final String cursor)
+            throws InvalidDataException {
+
+        if (!SEARCH_SORT_FIELDS.contains(sortField)) {
+            throw new InvalidDataException(String.format("Loans can only be sorted by %s", SEARCH_SORT_FIELDS));
+        }
+
+        if (limit <= 0 || limit > MAX_SEARCH_LIMIT) {
+            throw new InvalidDataException(String.format("Search limit must be between 1 and %d", MAX_SEARCH_LIMIT));
+        }
+
+        if (criteria.createdFrom() != null && criteria.createdTo() != null
+                && criteria.createdFrom().isAfter(criteria.createdTo())) {
+            throw new InvalidDataException("createdFrom cannot be after createdTo");
+        }
+
+        if (criteria.minAmount() != null && criteria.maxAmount() != null
+                && criteria.minAmount() > criteria.maxAmount()) {
+            throw new InvalidDataException("minAmount cannot be greater than maxAmount");
+        }
+
+        Sort sort = sortField.equals(LoanSearchCursor.LOAN_ID)
+                ? Sort.by(direction, LoanSearchCursor.LOAN_ID)
+                : Sort.by(direction, sortField, LoanSearchCursor.LOAN_ID);
+        ScrollPosition position = cursor == null || cursor.isBlank()
+                ? ScrollPosition.keyset()
+                : LoanSearchCursor.decode(cursor, sortField, direction).toScrollPosition();
+
+        Window<Loan> window = loanRepository.findBy(LoanSpecifications.matching(criteria),
+                query -> query.sortBy(sort).limit(limit).scroll(position));
+
+        List<Loan> loans = window.getContent();
+        String nextCursor = window.hasNext() && !loans.isEmpty()
+                ? LoanSearchCursor.after(loans.get(loans.size() - 1), sortField, direction).encode()
+                : null;
+
+        return new LoanSearchPage(loans, nextCursor != null, nextCursor);
+    }
+
+    /**
+     * Persists changes made to an existing loan, such as a status change when it is settled.
+     * The change is flushed straight away so the new version is known. When called inside a transaction the loan
+     * is only cached once that transaction commits, so a rolled back change is never served from the cache.
+     *
+     * @param loan the loan to persist
+     * @return the persisted {Loan} entity
+     */
+    public Loan updateLoan(final Loan loan) {
+        Loan savedLoan = loanRepository.saveAndFlush(loan);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    loanCache.put(savedLoan);
+                }
+            });
+        } else {
+            loanCache.put(savedLoan);
+        }
+
+        return savedLoan;
+    }
+
+    /**
+     * Returns the current version of a loan if it is cached, without reading the database.
+     * The version changes on every update, so it identifies the loan's current representation.
+     *
+     * @param loanId the unique identifier of the loan
+     * @return the cached version, or {null} if the loan is not cached
+     */
+    public Long getCachedLoanVersion(final String loanId) {
+        return loanCache.getVersion(loanId);
+    }
 }
@@ -0,0 +1,51 @@
+package za.graham.LoanView.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import za.graham.Loan.exception.LoanNotFoundException;
+import za.graham.LoanView.model.LoanView;
+import za.graham.LoanView.model.ProjectionLag;
+import za.graham.LoanView.service.LoanViewProjection;
+import za.graham.common.api.ApiError;
+
+/**
+ * REST controller that serves loan views from the in-memory read model.
+ */
+@RestController
+@RequestMapping("/loan-views")
+public class LoanViewController {
+
+    @Autowired
+    LoanViewProjection loanViewProjection;
+
+    /**
+     * Retrieves the projected view of a loan, including its outstanding balance and payment stats.
+     *
+     * @param loanId the unique identifier of the loan
+     * @return 200 OK: with the loan view, 404 Not Found: if the projection holds no view for the given ID
+     */
+    @GetMapping
+    public ResponseEntity<?> getLoanView(@RequestParam String loanId) {
+        LoanView loanView;
+
+        try {
+            loanView = loanViewProjection.getLoanView(loanId);
+        } catch (LoanNotFoundException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.NOT_FOUND, ex);
+        }
+
+        return new ResponseEntity<>(loanView, HttpStatus.OK);
+    }
+
+    /**
+     * Reports how far the loan view projection trails the write path.
+     *
+     * @return 200 OK: with the current projection lag
+     */
+    @GetMapping("/lag")
+    public ResponseEntity<ProjectionLag> getProjectionLag() {
+        return new ResponseEntity<>(loanViewProjection.getLag(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,35 @@
+package za.graham.LoanView.model;
+
+import lombok.Builder;
+import lombok.Value;
+import za.graham.Loan.model.Loan;
+
+import java.time.Instant;
+
+/**
+ * Read-optimised projection of a loan and its payments, maintained in memory
+ * from the loan and payment event stream.
+ */
+@Value
+@Builder(toBuilder = true)
+public class LoanView {
+    String loanId;
+
+    Loan.Status status;
+
+    Double loanAmount;
+
+    Integer term;
+
+    Double totalPaid;
+
+    Double outstandingBalance;
+
+    Integer paymentCount;
+
+    Instant lastPaymentDate;
+
+    Integer installmentsCollected;
+
+    Double nextDueAmount;
+}
@@ -0,0 +1,12 @@
+package za.graham.LoanView.model;
+
+/**
+ * Snapshot of how far the loan view projection trails the write path.
+ *
+ * @param publishedEvents total events received from the write path
+ * @param appliedEvents total events applied to the projection
+ * @param pendingEvents events received but not yet applied
+ * @param lagMillis age of the oldest pending event in milliseconds, 0 when caught up
+ */
+public record ProjectionLag(long publishedEvents, long appliedEvents, long pendingEvents, long lagMillis) {
+}
@@ -0,0 +1,229 @@
+package za.graham.LoanView.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import za.graham.Installment.event.InstallmentCollectedEvent;
+import za.graham.Installment.model.InstallmentSchedule;
+import za.graham.Installment.service.InstallmentService;
+import za.graham.Loan.event.LoanCreatedEvent;
+import za.graham.Loan.exception.LoanNotFoundException;
+import za.graham.Loan.model.Loan;
+import za.graham.LoanView.model.LoanView;
+import za.graham.LoanView.model.ProjectionLag;
+import za.graham.Payment.event.PaymentProcessedEvent;
+import za.graham.common.money.Cents;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains the in-memory {LoanView} read model.
+ * Loan, payment and installment events are received on the write path and handed off to a single
+ * applier thread, so the write path never waits on the projection and events for a
+ * loan are always applied in the order they were published.
+ */
+@Service
+public class LoanViewProjection {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanViewProjection.class);
+
+    private final Map<String, LoanView> views = new ConcurrentHashMap<>();
+
+    private final Queue<Long> pendingSince = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong publishedEvents = new AtomicLong();
+
+    private final AtomicLong appliedEvents = new AtomicLong();
+
+    private final ExecutorService applier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loan-view-projection");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("loan.view.projection.lag.events", this, p -> p.getLag().pendingEvents())
+                .description("Events published by the write path but not yet applied to the loan view projection")
+                .register(meterRegistry);
+        Gauge.builder("loan.view.projection.lag", this, p -> p.getLag().lagMillis())
+                .description("Age of the oldest event not yet applied to the loan view projection")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        applier.shutdown();
+    }
+
+    @EventListener
+    public void onLoanCreated(final LoanCreatedEvent event) {
+        enqueue(() -> apply(event));
+    }
+
+    @EventListener
+    public void onPaymentProcessed(final PaymentProcessedEvent event) {
+        enqueue(() -> apply(event));
+    }
+
+    @EventListener
+    public void onInstallmentCollected(final InstallmentCollectedEvent event) {
+        enqueue(() -> apply(event));
+    }
+
+    /**
+     * Retrieves the projected view of a loan.
+     *
+     * @param loanId the unique identifier of the loan
+     * @return the current {LoanView} of the loan
+     * @throws LoanNotFoundException if the projection holds no view for the given ID
+     */
+    public LoanView getLoanView(final String loanId) throws LoanNotFoundException {
+        LoanView view = views.get(loanId);
+
+        if (view == null) {
+            throw new LoanNotFoundException(String.format("Loan view not found {loanId: %s}", loanId));
+        }
+
+        return view;
+    }
+
+    /**
+     * Reports how far the projection trails the write path.
+     *
+     * @return the current {ProjectionLag}
+     */
+    public ProjectionLag getLag() {
+        long applied = appliedEvents.get();
+        long published = publishedEvents.get();
+        Long oldestPending = pendingSince.peek();
+        long lagMillis = oldestPending == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestPending);
+
+        return new ProjectionLag(published, applied, Math.max(0, published - applied), lagMillis);
+    }
+
+    /**
+     * Blocks until every event received so far has been applied to the projection.
+     *
+     * @param timeout the maximum time to wait
+     * @return true if the projection caught up within the timeout
+     */
+    public boolean awaitCaughtUp(final Duration timeout) {
+        try {
+            applier.submit(() -> { }).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private void enqueue(final Runnable update) {
+        publishedEvents.incrementAndGet();
+        pendingSince.add(System.nanoTime());
+
+        try {
+            applier.execute(() -> {
+                try {
+                    update.run();
+                } catch (RuntimeException ex) {
+                    log.error("Failed to apply event to loan view projection", ex);
+                } finally {
+                    pendingSince.poll();
+                    appliedEvents.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Shutting down: the view is in memory only, so the write path must not fail over a lost update
+            pendingSince.poll();
+            publishedEvents.decrementAndGet();
+            log.warn("Loan view projection is shut down, event not applied");
+        }
+    }
+
+    private void apply(final LoanCreatedEvent event) {
+        views.putIfAbsent(event.loanId(), LoanView.builder()
+                .loanId(event.loanId())
+                .status(Loan.Status.ACTIVE)
+                .loanAmount(event.loanAmount())
+                .term(event.term())
+                .totalPaid(0.0)
+                .outstandingBalance(event.loanAmount())
+                .paymentCount(0)
+                .installmentsCollected(0)
+                .nextDueAmount(nextDueAmount(event.loanAmount(), event.term(), 0, event.loanAmount()))
+                .build());
+    }
+
+    private void apply(final PaymentProcessedEvent event) {
+        views.compute(event.loanId(), (loanId, current) -> {
+            LoanView view = current != null ? current : LoanView.builder()
+                    .loanId(loanId)
+                    .status(Loan.Status.ACTIVE)
+                    .loanAmount(event.loanAmount())
+                    .term(event.term())
+                    .totalPaid(0.0)
+                    .paymentCount(0)
+                    .installmentsCollected(0)
+                    .build();
+
+            double totalPaid = Cents.round(view.getTotalPaid() + event.paymentAmount());
+            double outstanding = Cents.toAmount(Cents.toCents(view.getLoanAmount()) - Cents.toCents(totalPaid));
+            boolean settled = event.settlesLoan() || view.getStatus() == Loan.Status.SETTLED;
+
+            return view.toBuilder()
+                    .status(settled ? Loan.Status.SETTLED : Loan.Status.ACTIVE)
+                    .totalPaid(totalPaid)
+                    .outstandingBalance(settled ? 0.0 : outstanding)
+                    .paymentCount(view.getPaymentCount() + 1)
+                    .lastPaymentDate(event.paymentDate())
+                    .nextDueAmount(settled ? 0.0 : nextDueAmount(view.getLoanAmount(), view.getTerm(),
+                            view.getInstallmentsCollected(), outstanding))
+                    .build();
+        });
+    }
+
+    private void apply(final InstallmentCollectedEvent event) {
+        views.computeIfPresent(event.loanId(), (loanId, view) -> {
+            int installments = Math.max(view.getInstallmentsCollected(), event.installment());
+
+            return view.toBuilder()
+                    .installmentsCollected(installments)
+                    .nextDueAmount(view.getStatus() == Loan.Status.SETTLED ? 0.0 : nextDueAmount(view.getLoanAmount(),
+                            view.getTerm(), installments, view.getOutstandingBalance()))
+                    .build();
+        });
+    }
+
+    /**
+     * The amount the installment engine will collect next, by the same rule as {InstallmentSchedule.amountDue},
+     * so the final installment shows the whole remaining balance.
+     */
+    private static double nextDueAmount(final double loanAmount, final int term, final int installmentsCollected,
+                                        final double outstanding) {
+        InstallmentSchedule schedule = InstallmentSchedule.builder()
+                .term(term)
+                .installmentAmount(InstallmentService.installmentAmount(loanAmount, term))
+                .build();
+
+        return schedule.amountDue(installmentsCollected + 1, outstanding);
+    }
+}
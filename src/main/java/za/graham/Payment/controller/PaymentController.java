@@ -1,7 +1,5 @@
 package za.graham.Payment.controller;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -9,11 +7,16 @@ import org.springframework.web.bind.annotation.*;
 import za.graham.Loan.exception.LoanAlreadySettledException;
 import za.graham.Loan.exception.LoanNotFoundException;
 import za.graham.Payment.exception.PaymentExceedsOutstandingException;
+import za.graham.Payment.model.LoanContention;
 import za.graham.Payment.model.Payment;
 import za.graham.Payment.service.PaymentService;
 import za.graham.common.api.ApiError;
+import za.graham.common.audit.AuditEvent;
+import za.graham.common.audit.AuditLog;
 import za.graham.common.exception.InvalidDataException;
 
+import java.util.List;
+
 /**
  * REST controller that exposes endpoints for submitting loan payments.
  */
@@ -21,11 +24,12 @@ import za.graham.common.exception.InvalidDataException;
 @RequestMapping("/payments")
 public class PaymentController {
 
-    private static final Logger log = LoggerFactory.getLogger(PaymentController.class);
-
     @Autowired
     PaymentService paymentService;
 
+    @Autowired
+    AuditLog auditLog;
+
     /**
      * Processes a payment against an existing loan.
      *
@@ -42,18 +46,44 @@ public class PaymentController {
      */
     @PostMapping
     public ResponseEntity<?> postLoanPayment(@RequestParam String loanId, @RequestParam Double paymentAmount) {
-        Payment loanPayment;
-        try {
-            loanPayment = paymentService.processLoanPayment(loanId, paymentAmount);
-            log.info("Payment processed: {{}}", loanPayment);
+        long start = System.nanoTime();
+        ResponseEntity<?> response;
+        String paymentId = null;
+        String outcome = AuditEvent.SUCCESS;
 
-            return new ResponseEntity<>(loanPayment, HttpStatus.CREATED);
+        try {
+            Payment loanPayment = paymentService.processLoanPayment(loanId, paymentAmount);
+            paymentId = loanPayment.getPaymentId();
+            response = new ResponseEntity<>(loanPayment, HttpStatus.CREATED);
         } catch (PaymentExceedsOutstandingException | InvalidDataException ex) {
-            return ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
+            outcome = ex.getClass().getSimpleName();
+            response = ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
         } catch (LoanAlreadySettledException ex) {
-            return ApiError.apiErrorResponseEntity(HttpStatus.CONFLICT, ex);
+            outcome = ex.getClass().getSimpleName();
+            response = ApiError.apiErrorResponseEntity(HttpStatus.CONFLICT, ex);
         } catch (LoanNotFoundException ex) {
-            return ApiError.apiErrorResponseEntity(HttpStatus.NOT_FOUND, ex);
+            outcome = ex.getClass().getSimpleName();
+            response = ApiError.apiErrorResponseEntity(HttpStatus.NOT_FOUND, ex);
+        }
+
+        auditLog.record(AuditEvent.Action.PAYMENT_PROCESSED, loanId, paymentId, paymentAmount,
+                response.getStatusCode().value(), outcome, start);
+        return response;
+    }
+
+    /**
+     * Reports the loans receiving the most concurrent payments, and whether each is currently hot.
+     *
+     * @param limit the maximum number of loans to report
+     * @return 200 OK: with the per-loan contention report, most contended first, 400 Bad Request: if the limit is
+     * out of range
+     */
+    @GetMapping("/contention")
+    public ResponseEntity<?> getContentionReport(@RequestParam(defaultValue = "20") Integer limit) {
+        try {
+            return new ResponseEntity<>(paymentService.getContentionReport(limit), HttpStatus.OK);
+        } catch (InvalidDataException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
         }
     }
 }
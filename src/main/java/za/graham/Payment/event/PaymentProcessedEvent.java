@@ -0,0 +1,19 @@
+package za.graham.Payment.event;
+
+import java.time.Instant;
+
+/**
+ * In-process event published once a payment against a loan has been persisted.
+ * Carries enough of the loan to let read models build their state without a database lookup.
+ *
+ * @param paymentId the unique identifier of the payment
+ * @param loanId the unique identifier of the loan that was paid
+ * @param loanAmount the principal amount of the loan
+ * @param term the repayment term of the loan in months
+ * @param paymentAmount the amount that was paid
+ * @param paymentDate the time the payment was made
+ * @param settlesLoan whether this payment settled the loan
+ */
+public record PaymentProcessedEvent(String paymentId, String loanId, Double loanAmount, Integer term,
+                                    Double paymentAmount, Instant paymentDate, boolean settlesLoan) {
+}
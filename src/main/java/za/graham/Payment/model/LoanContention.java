@@ -0,0 +1,15 @@
+package za.graham.Payment.model;
+
+/**
+ * Per-loan contention statistics for payment processing.
+ *
+ * @param loanId the unique identifier of the loan
+ * @param hot whether the loan is currently receiving contended payments above the hot threshold
+ * @param payments payments submitted while the loan was contended
+ * @param contendedPayments payments that arrived while another payment on the same loan was being processed
+ * @param batches validation and commit cycles run for the loan while contended
+ * @param maxBatchSize the largest number of payments coalesced into one cycle
+ */
+public record LoanContention(String loanId, boolean hot, long payments, long contendedPayments, long batches,
+                             int maxBatchSize) {
+}
@@ -0,0 +1,14 @@
+package za.graham.Payment.model;
+
+import java.time.Instant;
+
+/**
+ * Flat, read-only projection of a payment for bulk range scans, avoiding the nested {Loan} entity.
+ *
+ * @param loanId the unique identifier of the loan that was paid
+ * @param paymentId the unique identifier of the payment
+ * @param paymentAmount the amount that was paid
+ * @param paymentDate the time the payment was made
+ */
+public record LoanPaymentRecord(String loanId, String paymentId, Double paymentAmount, Instant paymentDate) {
+}
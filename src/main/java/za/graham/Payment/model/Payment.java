@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import za.graham.Loan.model.Loan;
 
 import java.time.Instant;
@@ -13,7 +14,10 @@ import java.time.Instant;
  * JPA entity representing a payment made against a loan.
  */
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_loan_date", columnList = "loanId, paymentDate"),
+        @Index(name = "idx_payments_settled", columnList = "settlesLoan, paymentDate")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -24,9 +28,12 @@ public class Payment {
 
     @ManyToOne
     @JoinColumn(name = "loanId")
+    @ToString.Exclude
     private Loan loan;
 
     private Double paymentAmount;
 
     private Instant paymentDate;
+
+    private boolean settlesLoan;
 }
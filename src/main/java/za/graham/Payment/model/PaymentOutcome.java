@@ -0,0 +1,14 @@
+package za.graham.Payment.model;
+
+/**
+ * Result of one payment in a batch: either the persisted payment or the exception that rejected it.
+ *
+ * @param payment the persisted {Payment}, or null if the payment was rejected
+ * @param error the exception that rejected the payment, or null if it was accepted
+ */
+public record PaymentOutcome(Payment payment, RuntimeException error) {
+
+    public boolean isAccepted() {
+        return error == null;
+    }
+}
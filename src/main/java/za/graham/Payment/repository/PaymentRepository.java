@@ -1,13 +1,36 @@
 package za.graham.Payment.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import za.graham.Loan.model.Loan;
+import za.graham.Payment.model.LoanPaymentRecord;
 import za.graham.Payment.model.Payment;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<Payment, String> {
 
     List<Payment> findByLoan(Loan loan);
 
+    @Query("select new za.graham.Payment.model.LoanPaymentRecord(p.loan.loanId, p.paymentId, p.paymentAmount, p.paymentDate) " +
+            "from Payment p where p.loan.loanId > :afterLoanId and p.loan.loanId <= :lastLoanId " +
+            "and p.paymentDate < :paidBefore order by p.loan.loanId, p.paymentDate")
+    List<LoanPaymentRecord> findPaymentRange(String afterLoanId, String lastLoanId, Instant paidBefore);
+
+    @Query("select p.loan.loanId from Payment p where p.settlesLoan = true and p.paymentDate < :settledBefore " +
+            "order by p.paymentDate")
+    List<String> findLoanIdsSettledBefore(Instant settledBefore, Limit limit);
+
+    @Query("select new za.graham.Payment.model.LoanPaymentRecord(p.loan.loanId, p.paymentId, p.paymentAmount, p.paymentDate) " +
+            "from Payment p where p.loan.loanId in :loanIds")
+    List<LoanPaymentRecord> findPaymentsByLoanIds(Collection<String> loanIds);
+
+    @Modifying
+    @Query("delete from Payment p where p.loan.loanId in :loanIds")
+    int deleteByLoanIds(Collection<String> loanIds);
+
 }
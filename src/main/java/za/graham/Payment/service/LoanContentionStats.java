@@ -0,0 +1,68 @@
+package za.graham.Payment.service;
+
+import za.graham.Payment.model.LoanContention;
+
+/**
+ * Mutable contention counters for a single loan, tracked from the first time the loan is contended.
+ * A loan is hot while its contended payments within the current one-second window reach the hot threshold.
+ */
+class LoanContentionStats {
+
+    private static final long WINDOW_MILLIS = 1000;
+
+    private final String loanId;
+
+    private long payments;
+
+    private long contendedPayments;
+
+    private long batches;
+
+    private int maxBatchSize;
+
+    private long windowStartMillis;
+
+    private long windowContended;
+
+    private long previousWindowContended;
+
+    LoanContentionStats(final String loanId) {
+        this.loanId = loanId;
+        this.windowStartMillis = System.currentTimeMillis();
+    }
+
+    synchronized void recordArrival(final boolean contended) {
+        rollWindow();
+        payments++;
+
+        if (contended) {
+            contendedPayments++;
+            windowContended++;
+        }
+    }
+
+    synchronized void recordBatch(final int batchSize) {
+        batches++;
+        maxBatchSize = Math.max(maxBatchSize, batchSize);
+    }
+
+    synchronized boolean isHot(final int hotThreshold) {
+        rollWindow();
+        return Math.max(windowContended, previousWindowContended) >= hotThreshold;
+    }
+
+    synchronized LoanContention snapshot(final int hotThreshold) {
+        return new LoanContention(loanId, isHot(hotThreshold), payments, contendedPayments, batches, maxBatchSize);
+    }
+
+    private void rollWindow() {
+        long now = System.currentTimeMillis();
+        long elapsedWindows = (now - windowStartMillis) / WINDOW_MILLIS;
+
+        if (elapsedWindows > 0) {
+            previousWindowContended = elapsedWindows == 1 ? windowContended : 0;
+            windowContended = 0;
+            windowStartMillis += elapsedWindows * WINDOW_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package za.graham.Payment.service;
+
+import za.graham.Payment.model.Payment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Payments waiting to be applied to a single loan.
+ * Whichever caller holds the lock drains every queued payment and applies them as one batch,
+ * completing the other callers' results on their behalf.
+ */
+class LoanPaymentQueue {
+
+    /**
+     * A payment request waiting for its turn, completed by whichever caller processes its batch.
+     */
+    record PendingPayment(Double paymentAmount, CompletableFuture<Payment> result) {
+
+        PendingPayment(final Double paymentAmount) {
+            this(paymentAmount, new CompletableFuture<>());
+        }
+    }
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    /** Callers that have joined this queue and not yet received their result, guarded by the queue map. */
+    int waiters;
+
+    private final Queue<PendingPayment> pending = new ConcurrentLinkedQueue<>();
+
+    void add(final PendingPayment payment) {
+        pending.add(payment);
+    }
+
+    /**
+     * @return every payment queued so far, in arrival order
+     */
+    List<PendingPayment> drain() {
+        List<PendingPayment> batch = new ArrayList<>();
+        PendingPayment next;
+
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+
+        return batch;
+    }
+}
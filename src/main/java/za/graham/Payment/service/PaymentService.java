@@ -1,36 +1,80 @@
 package za.graham.Payment.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import za.graham.Loan.exception.LoanAlreadySettledException;
 import za.graham.Loan.exception.LoanNotFoundException;
 import za.graham.Loan.model.Loan;
 import za.graham.Loan.service.LoanService;
+import za.graham.Payment.event.PaymentProcessedEvent;
 import za.graham.Payment.exception.PaymentExceedsOutstandingException;
+import za.graham.Payment.model.LoanContention;
 import za.graham.Payment.model.Payment;
+import za.graham.Payment.model.PaymentOutcome;
 import za.graham.Payment.repository.PaymentRepository;
+import za.graham.common.flightrecorder.FlightRecorderEvents;
+import za.graham.common.flightrecorder.PaymentBatchEvent;
+import za.graham.common.flightrecorder.PaymentRequestEvent;
 import za.graham.common.generator.UniqueIdGenerator;
+import za.graham.common.money.Balance;
 import za.graham.common.exception.InvalidDataException;
 
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service layer responsible for processing loan payment business logic,
  * including outstanding balance validation.
+ * <p>
+ * Payments for the same loan are serialised through a per-loan queue. When several payments
+ * for one loan arrive together, the first caller to get the loan's lock applies all of them
+ * in arrival order as one validation and commit cycle, so hot loans are not validated once per payment.
  */
 @Service
 public class PaymentService {
 
+    private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
+
+    private static final int MAX_TRACKED_CONTENDED_LOANS = 10_000;
+
+    private static final int MAX_CONTENTION_REPORT_LIMIT = 1_000;
+
     @Autowired
     PaymentRepository paymentRepository;
 
     @Autowired
     LoanService loanService;
 
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${payments.hot-loan.threshold:10}")
+    int hotLoanThreshold = 10;
+
+    private final Map<String, LoanPaymentQueue> loanQueues = new ConcurrentHashMap<>();
+
+    private final Map<String, LoanContentionStats> contentionStats = new ConcurrentHashMap<>();
+
     /**
      * Processes a payment against the specified loan.
      * Looks up the loan, validates that the payment does not exceed the remaining
      * outstanding balance, then persists and returns the payment record.
+     * A {PaymentProcessedEvent} is published once the payment has been saved.
      *
      * @param loanId the unique identifier of the loan being paid
      * @param paymentAmount the amount to pay
@@ -41,45 +85,325 @@ public class PaymentService {
     public Payment processLoanPayment(final String loanId, final Double paymentAmount) throws LoanNotFoundException,
             PaymentExceedsOutstandingException, LoanAlreadySettledException {
 
-        if (paymentAmount <= 0) {
-            throw new InvalidDataException("Payment amount cannot be zero or less");
+        PaymentRequestEvent event = new PaymentRequestEvent();
+        event.begin();
+        long queueWait = 0;
+        String outcome = null;
+
+        try {
+            if (paymentAmount <= 0) {
+                throw new InvalidDataException("Payment amount cannot be zero or less");
+            }
+
+            LoanPaymentQueue.PendingPayment pendingPayment = new LoanPaymentQueue.PendingPayment(paymentAmount);
+
+            queueWait = submit(loanId, List.of(pendingPayment));
+
+            try {
+                Payment payment = pendingPayment.result().join();
+                outcome = FlightRecorderEvents.SUCCESS;
+                return payment;
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.loanId = loanId;
+                event.paymentAmount = paymentAmount != null ? paymentAmount : 0;
+                event.queueWait = queueWait;
+                event.outcome = outcome;
+                event.commit();
+            }
         }
+    }
 
-        Loan loan = loanService.getLoan(loanId);
+    /**
+     * Processes several payments against the same loan, in the given order, as one validation and commit cycle.
+     * Each payment is validated exactly as by {processLoanPayment}; a rejected payment does not stop the ones after it.
+     *
+     * @param loanId the unique identifier of the loan being paid
+     * @param paymentAmounts the amounts to pay, in the order they should be applied
+     * @return one {PaymentOutcome} per amount, in the same order
+     */
+    public List<PaymentOutcome> processLoanPayments(final String loanId, final List<Double> paymentAmounts) {
+        List<LoanPaymentQueue.PendingPayment> pendingPayments = new ArrayList<>(paymentAmounts.size());
+        List<LoanPaymentQueue.PendingPayment> validPayments = new ArrayList<>(paymentAmounts.size());
 
-        if (loan.getStatus().equals(Loan.Status.SETTLED)) {
-            throw new LoanAlreadySettledException("Loan is already in a settled status");
+        for (Double paymentAmount : paymentAmounts) {
+            LoanPaymentQueue.PendingPayment pendingPayment = new LoanPaymentQueue.PendingPayment(paymentAmount);
+
+            if (paymentAmount == null || paymentAmount <= 0) {
+                pendingPayment.result().completeExceptionally(
+                        new InvalidDataException("Payment amount cannot be zero or less"));
+            } else {
+                validPayments.add(pendingPayment);
+            }
+
+            pendingPayments.add(pendingPayment);
         }
 
-        Payment payment = Payment.builder()
-                .paymentId(UniqueIdGenerator.generateUniqueId("PAYMENT"))
-                .paymentAmount(paymentAmount)
-                .loan(loan)
-                .paymentDate(Instant.now())
-                .build();
+        if (!validPayments.isEmpty()) {
+            submit(loanId, validPayments);
+        }
+
+        return pendingPayments.stream()
+                .map(pendingPayment -> pendingPayment.result()
+                        .handle((payment, ex) -> new PaymentOutcome(payment, ex == null ? null : unwrap(ex)))
+                        .join())
+                .toList();
+    }
 
-        Double outstandingLoanAmount = getOutstandingLoanPaymentAmount(loan);
+    /**
+     * Returns the failure behind a completed payment as a {RuntimeException}, wrapping anything else so the real
+     * cause is kept rather than lost to a {ClassCastException}.
+     */
+    static RuntimeException unwrap(final Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
 
-        if (paymentAmount > outstandingLoanAmount) {
-            throw new PaymentExceedsOutstandingException(String.format("Payment exceeds outstanding paymentAmount {outstandingLoanAmount=%.2f, paymentAmount=%.2f}", outstandingLoanAmount, paymentAmount));
-        } else if (paymentAmount.equals(outstandingLoanAmount)) {
-            loan.setStatus(Loan.Status.SETTLED);
+    /**
+     * Reports contention statistics for loans that have received concurrent payments,
+     * most contended first.
+     *
+     * @param limit the maximum number of loans to report
+     * @return the per-loan {LoanContention} report
+     * @throws InvalidDataException if the limit is out of range
+     */
+    public List<LoanContention> getContentionReport(final int limit) throws InvalidDataException {
+        if (limit <= 0 || limit > MAX_CONTENTION_REPORT_LIMIT) {
+            throw new InvalidDataException(String.format("Contention report limit must be between 1 and %d",
+                    MAX_CONTENTION_REPORT_LIMIT));
         }
 
-        return paymentRepository.save(payment);
+        return contentionStats.values().stream()
+                .map(stats -> stats.snapshot(hotLoanThreshold))
+                .sorted(Comparator.comparingLong(LoanContention::contendedPayments).reversed())
+                .limit(limit)
+                .toList();
     }
 
     /**
-     * Calculates the outstanding balance on a loan by subtracting the sum of all
-     * existing payments from the original loan amount.
+     * Queues payments on the loan's payment queue and, once holding the loan's lock, applies everything queued
+     * so far unless another caller already applied these payments as part of its own batch.
      *
-     * @param loan the loan to evaluate
-     * @return the remaining outstanding amount
+     * @return the time spent waiting for the loan's lock, in nanoseconds
+     */
+    private long submit(final String loanId, final List<LoanPaymentQueue.PendingPayment> pendingPayments) {
+        LoanPaymentQueue queue = joinQueue(loanId);
+        long queueWait;
+
+        try {
+            pendingPayments.forEach(queue::add);
+            long waitStart = System.nanoTime();
+            queue.lock.lock();
+            queueWait = System.nanoTime() - waitStart;
+
+            try {
+                if (!pendingPayments.get(pendingPayments.size() - 1).result().isDone()) {
+                    applyBatch(loanId, queue.drain());
+                }
+            } finally {
+                queue.lock.unlock();
+            }
+        } finally {
+            leaveQueue(loanId);
+        }
+
+        return queueWait;
+    }
+
+    /**
+     * Validates and persists a batch of payments against one loan in arrival order.
+     * Each payment is checked against the running outstanding balance, kept exactly; the payment that brings
+     * the balance to exactly zero is marked as settling the loan and every payment after it is rejected.
+     * <p>
+     * The accepted payments and the loan's settlement are committed in one transaction. Callers are told of the
+     * outcome only after the commit, and {PaymentProcessedEvent}s are published after that, so a failing listener
+     * cannot report a committed payment as failed.
      */
-    private double getOutstandingLoanPaymentAmount(final Loan loan) {
-        return loan.getLoanAmount() - paymentRepository.findByLoan(loan).stream()
-                .filter(p -> p.getPaymentAmount() != null)
-                .mapToDouble(Payment::getPaymentAmount)
-                .sum();
+    private void applyBatch(final String loanId, final List<LoanPaymentQueue.PendingPayment> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        LoanContentionStats stats = contentionStats.get(loanId);
+
+        if (stats != null) {
+            stats.recordBatch(batch.size());
+        }
+
+        List<LoanPaymentQueue.PendingPayment> accepted = new ArrayList<>(batch.size());
+        List<Payment> payments = new ArrayList<>(batch.size());
+        List<Payment> savedPayments;
+        Loan loan;
+        PaymentBatchEvent event = new PaymentBatchEvent();
+        event.begin();
+        long loanLookup = 0;
+        long balanceCalculation = 0;
+        long persist = 0;
+        int paymentsSummed = 0;
+        String outcome = null;
+
+        try {
+            long stageStart = System.nanoTime();
+            loan = loanService.getLoan(loanId);
+            loanLookup = System.nanoTime() - stageStart;
+
+            stageStart = System.nanoTime();
+            List<Payment> existingPayments = paymentRepository.findByLoan(loan);
+            BigDecimal outstanding = Balance.outstanding(loan.getLoanAmount(),
+                    existingPayments.stream().map(Payment::getPaymentAmount).toList());
+            paymentsSummed = existingPayments.size();
+            balanceCalculation = System.nanoTime() - stageStart;
+
+            for (LoanPaymentQueue.PendingPayment pendingPayment : batch) {
+                Double paymentAmount = pendingPayment.paymentAmount();
+
+                if (loan.getStatus().equals(Loan.Status.SETTLED)) {
+                    pendingPayment.result().completeExceptionally(
+                            new LoanAlreadySettledException("Loan is already in a settled status"));
+                    continue;
+                }
+
+                BigDecimal payment = Balance.exact(paymentAmount);
+
+                if (payment.compareTo(outstanding) > 0) {
+                    pendingPayment.result().completeExceptionally(new PaymentExceedsOutstandingException(String.format(
+                            "Payment exceeds outstanding paymentAmount {outstandingLoanAmount=%.2f, paymentAmount=%.2f}",
+                            outstanding, paymentAmount)));
+                    continue;
+                }
+
+                boolean settlesLoan = payment.compareTo(outstanding) == 0;
+
+                if (settlesLoan) {
+                    loan.setStatus(Loan.Status.SETTLED);
+                }
+
+                outstanding = outstanding.subtract(payment);
+                accepted.add(pendingPayment);
+                payments.add(Payment.builder()
+                        .paymentId(UniqueIdGenerator.generateUniqueId("PAYMENT"))
+                        .paymentAmount(paymentAmount)
+                        .loan(loan)
+                        .paymentDate(Instant.now())
+                        .settlesLoan(settlesLoan)
+                        .build());
+            }
+
+            outcome = FlightRecorderEvents.SUCCESS;
+
+            if (payments.isEmpty()) {
+                return;
+            }
+
+            stageStart = System.nanoTime();
+            savedPayments = new TransactionTemplate(transactionManager).execute(status -> persist(loan, payments));
+            persist = System.nanoTime() - stageStart;
+        } catch (RuntimeException ex) {
+            outcome = ex.getClass().getSimpleName();
+            batch.forEach(pendingPayment -> pendingPayment.result().completeExceptionally(ex));
+            return;
+        } catch (Error ex) {
+            // Other callers' payments may be in this batch; fail them rather than leave them waiting forever
+            outcome = ex.getClass().getSimpleName();
+            batch.forEach(pendingPayment -> pendingPayment.result().completeExceptionally(ex));
+            throw ex;
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.loanId = loanId;
+                event.batchSize = batch.size();
+                event.accepted = payments.size();
+                event.loanLookup = loanLookup;
+                event.paymentsSummed = paymentsSummed;
+                event.balanceCalculation = balanceCalculation;
+                event.persist = persist;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).result().complete(savedPayments.get(i));
+        }
+
+        for (Payment payment : payments) {
+            try {
+                eventPublisher.publishEvent(new PaymentProcessedEvent(payment.getPaymentId(), loan.getLoanId(),
+                        loan.getLoanAmount(), loan.getTerm(), payment.getPaymentAmount(), payment.getPaymentDate(),
+                        payment.isSettlesLoan()));
+            } catch (RuntimeException ex) {
+                log.warn("Payment processed event listener failed {loanId: {}, paymentId: {}}", loanId,
+                        payment.getPaymentId(), ex);
+            }
+        }
+    }
+
+    /**
+     * Saves the accepted payments of a batch and, if one of them settles the loan, the loan's new status.
+     *
+     * @return the saved payments, in the same order
+     */
+    private List<Payment> persist(final Loan loan, final List<Payment> payments) {
+        List<Payment> savedPayments = payments.size() == 1
+                ? List.of(paymentRepository.save(payments.get(0)))
+                : paymentRepository.saveAll(payments);
+
+        if (loan.getStatus().equals(Loan.Status.SETTLED)) {
+            loanService.updateLoan(loan);
+        }
+
+        return savedPayments;
+    }
+
+    /**
+     * Registers the caller on the loan's payment queue, creating the queue if needed,
+     * and records the arrival as contended if other callers are already waiting on it.
+     */
+    private LoanPaymentQueue joinQueue(final String loanId) {
+        boolean[] contended = new boolean[1];
+
+        LoanPaymentQueue queue = loanQueues.compute(loanId, (id, existing) -> {
+            LoanPaymentQueue joined = existing != null ? existing : new LoanPaymentQueue();
+            contended[0] = joined.waiters > 0;
+            joined.waiters++;
+            return joined;
+        });
+
+        LoanContentionStats stats = contended[0]
+                ? trackContention(loanId)
+                : contentionStats.get(loanId);
+
+        if (stats != null) {
+            stats.recordArrival(contended[0]);
+        }
+
+        return queue;
+    }
+
+    /**
+     * Deregisters the caller from the loan's payment queue, dropping the queue once nobody is waiting on it.
+     */
+    private void leaveQueue(final String loanId) {
+        loanQueues.computeIfPresent(loanId, (id, queue) -> --queue.waiters == 0 ? null : queue);
+    }
+
+    private LoanContentionStats trackContention(final String loanId) {
+        if (contentionStats.size() >= MAX_TRACKED_CONTENDED_LOANS && !contentionStats.containsKey(loanId)) {
+            contentionStats.values().removeIf(stats -> !stats.isHot(hotLoanThreshold));
+        }
+
+        return contentionStats.computeIfAbsent(loanId, LoanContentionStats::new);
     }
 }
@@ -0,0 +1,40 @@
+package za.graham.Reconciliation.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import za.graham.Reconciliation.model.ReconciliationImportResult;
+import za.graham.Reconciliation.service.ReconciliationImportService;
+import za.graham.common.api.ApiError;
+import za.graham.common.exception.InvalidDataException;
+
+/**
+ * REST controller that exposes the bank reconciliation file importer.
+ */
+@RestController
+@RequestMapping("/reconciliations")
+public class ReconciliationController {
+
+    @Autowired
+    ReconciliationImportService reconciliationImportService;
+
+    /**
+     * Imports a bank payment confirmation file from the configured import directory.
+     *
+     * @param fileName the name of the file within the import directory
+     * @return 200 OK: with the import summary, 400 Bad Request: if the file name is invalid or the file does not exist
+     */
+    @PostMapping
+    public ResponseEntity<?> importFile(@RequestParam String fileName) {
+        ReconciliationImportResult result;
+
+        try {
+            result = reconciliationImportService.importFile(fileName);
+        } catch (InvalidDataException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.BAD_REQUEST, ex);
+        }
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,85 @@
+package za.graham.Reconciliation.model;
+
+import java.util.Arrays;
+
+/**
+ * Rows parsed from one line-aligned chunk of a reconciliation file, stored column-wise.
+ * Line numbers are relative to the start of the chunk until {offsetLines} is applied.
+ */
+public class ReconciliationChunk {
+
+    private int size;
+
+    private int lineCount;
+
+    private long firstLineNumber;
+
+    private int[] lines = new int[1024];
+
+    private String[] loanIds = new String[1024];
+
+    private double[] paymentAmounts = new double[1024];
+
+    private String[] errors = new String[1024];
+
+    /**
+     * Appends a row parsed from the chunk.
+     *
+     * @param line the zero-based line index within the chunk
+     * @param loanId the loan ID on the row, or null if it could not be read
+     * @param paymentAmount the payment amount on the row
+     * @param error why the row is malformed, or null if it parsed cleanly
+     */
+    public void add(final int line, final String loanId, final double paymentAmount, final String error) {
+        if (size == lines.length) {
+            int capacity = size * 2;
+            lines = Arrays.copyOf(lines, capacity);
+            loanIds = Arrays.copyOf(loanIds, capacity);
+            paymentAmounts = Arrays.copyOf(paymentAmounts, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+        }
+
+        lines[size] = line;
+        loanIds[size] = loanId;
+        paymentAmounts[size] = paymentAmount;
+        errors[size] = error;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public void setLineCount(final int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Sets the file line number of the chunk's first line, once the line counts of earlier chunks are known.
+     *
+     * @param firstLineNumber the one-based line number in the file of the chunk's first line
+     */
+    public void offsetLines(final long firstLineNumber) {
+        this.firstLineNumber = firstLineNumber;
+    }
+
+    public long getLineNumber(final int row) {
+        return firstLineNumber + lines[row];
+    }
+
+    public String getLoanId(final int row) {
+        return loanIds[row];
+    }
+
+    public double getPaymentAmount(final int row) {
+        return paymentAmounts[row];
+    }
+
+    public String getError(final int row) {
+        return errors[row];
+    }
+}
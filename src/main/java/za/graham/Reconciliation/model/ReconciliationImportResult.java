@@ -0,0 +1,17 @@
+package za.graham.Reconciliation.model;
+
+/**
+ * Outcome of importing a bank reconciliation file.
+ *
+ * @param fileName the imported file
+ * @param rows data rows read from the file
+ * @param accepted rows recorded as payments
+ * @param rejected rows written to the error file
+ * @param errorFile the file listing rejected rows and their reasons, or null if every row was accepted
+ * @param parseMillis time spent parsing the file
+ * @param processMillis time spent applying the payments
+ * @param rowsPerSecond rows imported per second, end to end
+ */
+public record ReconciliationImportResult(String fileName, long rows, long accepted, long rejected, String errorFile,
+                                         long parseMillis, long processMillis, double rowsPerSecond) {
+}
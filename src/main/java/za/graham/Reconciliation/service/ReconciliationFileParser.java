@@ -0,0 +1,358 @@
+package za.graham.Reconciliation.service;
+
+import za.graham.Reconciliation.model.ReconciliationChunk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses bank reconciliation CSV files of {loanId,paymentAmount[,...]} rows.
+ * <p>
+ * The file is split into chunks that start and end on line boundaries, and each chunk is memory-mapped
+ * and parsed in parallel directly from its byte buffer. Amounts are decoded from the bytes without an
+ * intermediate string, and each distinct loan ID in a chunk is materialised as a {String} only once.
+ */
+public class ReconciliationFileParser {
+
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    private static final int MAX_FAST_PATH_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15};
+
+    private final int parallelism;
+
+    public ReconciliationFileParser(final int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Parses the whole file. A first line whose amount is not numeric is treated as a header and skipped.
+     *
+     * @param file the reconciliation file
+     * @return the parsed chunks in file order, with file line numbers assigned
+     * @throws IOException if the file cannot be read
+     */
+    public List<ReconciliationChunk> parse(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> ranges = split(channel);
+
+            List<ReconciliationChunk> chunks = ranges.parallelStream()
+                    .map(range -> {
+                        try {
+                            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+                            return parseChunk(buffer, range[0] == 0);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    })
+                    .toList();
+
+            long nextLineNumber = 1;
+
+            for (ReconciliationChunk chunk : chunks) {
+                chunk.offsetLines(nextLineNumber);
+                nextLineNumber += chunk.getLineCount();
+            }
+
+            return chunks;
+        }
+    }
+
+    /**
+     * Splits the file into byte ranges that each end just after a newline (or at the end of the file).
+     */
+    private List<long[]> split(final FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunkCount = (int) Math.max(parallelism * 4L, size / MAX_CHUNK_BYTES + 1);
+        List<long[]> ranges = new ArrayList<>(chunkCount);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+
+        for (int i = 1; i <= chunkCount && start < size; i++) {
+            long target = size * i / chunkCount;
+
+            if (target <= start) {
+                continue;
+            }
+
+            long end = i == chunkCount ? size : nextLineStart(channel, target, size, probe);
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+
+        return ranges;
+    }
+
+    private static long nextLineStart(final FileChannel channel, final long from, final long size,
+                                      final ByteBuffer probe) throws IOException {
+        long position = from - 1;
+
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+
+            if (read <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+
+            position += read;
+        }
+
+        return size;
+    }
+
+    private static ReconciliationChunk parseChunk(final ByteBuffer buffer, final boolean firstChunk) {
+        ReconciliationChunk chunk = new ReconciliationChunk();
+        LoanIdInterner loanIds = new LoanIdInterner();
+        int limit = buffer.limit();
+        int position = 0;
+        int line = 0;
+
+        while (position < limit) {
+            int lineStart = position;
+            int comma = -1;
+
+            while (position < limit && buffer.get(position) != '\n') {
+                if (comma < 0 && buffer.get(position) == ',') {
+                    comma = position;
+                }
+                position++;
+            }
+
+            int lineEnd = position;
+            position++;
+
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            if (lineEnd > lineStart) {
+                parseRow(buffer, chunk, loanIds, line, lineStart, comma, lineEnd, firstChunk && line == 0);
+            }
+
+            line++;
+        }
+
+        chunk.setLineCount(line);
+        return chunk;
+    }
+
+    private static void parseRow(final ByteBuffer buffer, final ReconciliationChunk chunk, final LoanIdInterner loanIds,
+                                 final int line, final int lineStart, final int comma, final int lineEnd,
+                                 final boolean mayBeHeader) {
+        if (comma < 0) {
+            chunk.add(line, null, Double.NaN, "Malformed row, expected loanId,paymentAmount");
+            return;
+        }
+
+        int idStart = skipSpaces(buffer, lineStart, comma);
+        int idEnd = trimSpaces(buffer, idStart, comma);
+        int amountEnd = lineEnd;
+
+        for (int i = comma + 1; i < lineEnd; i++) {
+            if (buffer.get(i) == ',') {
+                amountEnd = i;
+                break;
+            }
+        }
+
+        double amount = parseAmount(buffer, comma + 1, amountEnd);
+
+        if (Double.isNaN(amount)) {
+            if (!mayBeHeader) {
+                chunk.add(line, idEnd > idStart ? loanIds.intern(buffer, idStart, idEnd) : null, Double.NaN,
+                        "Malformed payment amount");
+            }
+            return;
+        }
+
+        if (idEnd == idStart) {
+            chunk.add(line, null, amount, "Missing loanId");
+            return;
+        }
+
+        chunk.add(line, loanIds.intern(buffer, idStart, idEnd), amount, null);
+    }
+
+    /**
+     * Decodes a plain decimal such as {1500}, {-20} or {2500.75}.
+     * Values with up to 15 significant digits are assembled from the digits directly; a single
+     * correctly-rounded division gives the same double as {Double.parseDouble}.
+     *
+     * @return the amount, or NaN if the bytes are not a plain decimal
+     */
+    static double parseAmount(final ByteBuffer buffer, final int from, final int to) {
+        int start = skipSpaces(buffer, from, to);
+        int end = trimSpaces(buffer, start, to);
+        boolean negative = false;
+
+        if (start < end && (buffer.get(start) == '-' || buffer.get(start) == '+')) {
+            negative = buffer.get(start) == '-';
+            start++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else {
+                return Double.NaN;
+            }
+
+            if (digits > MAX_FAST_PATH_DIGITS) {
+                return parseSlow(buffer, from, to);
+            }
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(final ByteBuffer buffer, final int from, final int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    private static int skipSpaces(final ByteBuffer buffer, int from, final int to) {
+        while (from < to && buffer.get(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimSpaces(final ByteBuffer buffer, final int from, int to) {
+        while (to > from && buffer.get(to - 1) == ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Open-addressing table that returns the same {String} for repeated loan IDs, so a string is only
+     * allocated the first time an ID is seen.
+     */
+    private static final class LoanIdInterner {
+
+        private int[] hashes = new int[1024];
+
+        private String[] values = new String[1024];
+
+        private int size;
+
+        private byte[] scratch = new byte[64];
+
+        String intern(final ByteBuffer buffer, final int from, final int to) {
+            int hash = 1;
+
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+
+            int mask = values.length - 1;
+
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                String value = values[slot];
+
+                if (value == null) {
+                    return insert(slot, hash, buffer, from, to);
+                }
+
+                if (hashes[slot] == hash && matches(value, buffer, from, to)) {
+                    return value;
+                }
+            }
+        }
+
+        private String insert(final int slot, final int hash, final ByteBuffer buffer, final int from, final int to) {
+            int length = to - from;
+
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+
+            buffer.get(from, scratch, 0, length);
+            String value = new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+            hashes[slot] = hash;
+            values[slot] = value;
+
+            if (++size * 2 > values.length) {
+                grow();
+            }
+
+            return value;
+        }
+
+        private static boolean matches(final String value, final ByteBuffer buffer, final int from, final int to) {
+            if (value.length() != to - from) {
+                return false;
+            }
+
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) != (buffer.get(from + i) & 0xFF)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void grow() {
+            int[] oldHashes = hashes;
+            String[] oldValues = values;
+            hashes = new int[oldValues.length * 2];
+            values = new String[oldValues.length * 2];
+            int mask = values.length - 1;
+
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = oldHashes[i] & mask;
+
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+
+                    hashes[slot] = oldHashes[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
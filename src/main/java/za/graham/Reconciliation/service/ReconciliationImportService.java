@@ -0,0 +1,227 @@
+package za.graham.Reconciliation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import za.graham.Payment.model.PaymentOutcome;
+import za.graham.Payment.service.PaymentService;
+import za.graham.Reconciliation.model.ReconciliationChunk;
+import za.graham.Reconciliation.model.ReconciliationImportResult;
+import za.graham.common.exception.InvalidDataException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports bank payment confirmation files into the payment book.
+ * <p>
+ * The file is parsed in parallel by {ReconciliationFileParser}. Rows are then grouped by loan, keeping
+ * file order within each loan, and each loan's rows are applied through {PaymentService} in batches,
+ * with different loans processed in parallel. Rejected rows are written to an error file next to the
+ * import, with the same exception type names the payment API reports.
+ */
+@Service
+public class ReconciliationImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationImportService.class);
+
+    private static final String ERROR_FILE_HEADER = "lineNumber,loanId,paymentAmount,error,message";
+
+    @Autowired
+    PaymentService paymentService;
+
+    @Value("${reconciliation.import-directory:imports}")
+    String importDirectory = "imports";
+
+    @Value("${reconciliation.workers:8}")
+    int workers = 8;
+
+    @Value("${reconciliation.batch-size:500}")
+    int batchSize = 500;
+
+    /**
+     * Imports a reconciliation file from the configured import directory.
+     *
+     * @param fileName the name of the file within the import directory
+     * @return the {ReconciliationImportResult} summary
+     * @throws InvalidDataException if the file name is invalid or the file does not exist
+     */
+    public ReconciliationImportResult importFile(final String fileName) throws InvalidDataException {
+        Path directory = Path.of(importDirectory).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+
+        if (!file.startsWith(directory) || file.equals(directory)) {
+            throw new InvalidDataException(String.format("Invalid reconciliation file name {fileName: %s}", fileName));
+        }
+
+        if (!Files.isRegularFile(file)) {
+            throw new InvalidDataException(String.format("Reconciliation file not found {fileName: %s}", fileName));
+        }
+
+        try {
+            return importPath(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private ReconciliationImportResult importPath(final Path file) throws IOException {
+        long start = System.nanoTime();
+        List<ReconciliationChunk> chunks = new ReconciliationFileParser(workers).parse(file);
+        long parsed = System.nanoTime();
+
+        Queue<ReconciliationReject> rejects = new ConcurrentLinkedQueue<>();
+        Map<String, LoanRows> rowsByLoan = new LinkedHashMap<>();
+        long rows = 0;
+
+        for (ReconciliationChunk chunk : chunks) {
+            for (int row = 0; row < chunk.size(); row++) {
+                rows++;
+
+                if (chunk.getError(row) != null) {
+                    rejects.add(new ReconciliationReject(chunk.getLineNumber(row), chunk.getLoanId(row),
+                            chunk.getPaymentAmount(row), InvalidDataException.class.getSimpleName(), chunk.getError(row)));
+                    continue;
+                }
+
+                rowsByLoan.computeIfAbsent(chunk.getLoanId(row), loanId -> new LoanRows())
+                        .add(chunk.getLineNumber(row), chunk.getPaymentAmount(row));
+            }
+        }
+
+        AtomicLong accepted = new AtomicLong();
+        applyPayments(rowsByLoan, accepted, rejects);
+        long processed = System.nanoTime();
+
+        Path errorFile = rejects.isEmpty() ? null : writeErrorFile(file, rejects);
+        long parseMillis = TimeUnit.NANOSECONDS.toMillis(parsed - start);
+        long processMillis = TimeUnit.NANOSECONDS.toMillis(processed - parsed);
+        double rowsPerSecond = rows * 1e9 / Math.max(1, System.nanoTime() - start);
+
+        log.info("Reconciliation file imported {file: {}, rows: {}, accepted: {}, rejected: {}, parseMillis: {}, processMillis: {}, rowsPerSecond: {}}",
+                file.getFileName(), rows, accepted.get(), rejects.size(), parseMillis, processMillis,
+                String.format("%.0f", rowsPerSecond));
+
+        return new ReconciliationImportResult(file.getFileName().toString(), rows, accepted.get(), rejects.size(),
+                errorFile != null ? errorFile.toString() : null, parseMillis, processMillis, rowsPerSecond);
+    }
+
+    /**
+     * Applies each loan's rows in file order, in batches of at most {batchSize}, processing loans in parallel.
+     */
+    private void applyPayments(final Map<String, LoanRows> rowsByLoan, final AtomicLong accepted,
+                               final Queue<ReconciliationReject> rejects) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, workers));
+
+        try {
+            List<Future<?>> results = new ArrayList<>(rowsByLoan.size());
+
+            rowsByLoan.forEach((loanId, loanRows) -> results.add(pool.submit(() -> {
+                for (int from = 0; from < loanRows.size; from += batchSize) {
+                    int to = Math.min(loanRows.size, from + batchSize);
+                    List<PaymentOutcome> outcomes = paymentService.processLoanPayments(loanId, loanRows.amounts(from, to));
+
+                    for (int i = 0; i < outcomes.size(); i++) {
+                        PaymentOutcome outcome = outcomes.get(i);
+
+                        if (outcome.isAccepted()) {
+                            accepted.incrementAndGet();
+                        } else {
+                            rejects.add(new ReconciliationReject(loanRows.lines[from + i], loanId,
+                                    loanRows.amounts[from + i], outcome.error().getClass().getSimpleName(),
+                                    outcome.error().getMessage()));
+                        }
+                    }
+                }
+            })));
+
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconciliation import interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Reconciliation import failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Path writeErrorFile(final Path file, final Collection<ReconciliationReject> rejects) throws IOException {
+        Path errorFile = file.resolveSibling(file.getFileName() + ".errors.csv");
+        List<ReconciliationReject> ordered = new ArrayList<>(rejects);
+        ordered.sort(Comparator.comparingLong(ReconciliationReject::lineNumber));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(errorFile)) {
+            writer.write(ERROR_FILE_HEADER);
+            writer.newLine();
+
+            for (ReconciliationReject reject : ordered) {
+                writer.write(reject.lineNumber() + ","
+                        + csv(reject.loanId()) + ","
+                        + (Double.isNaN(reject.paymentAmount()) ? "" : reject.paymentAmount()) + ","
+                        + reject.error() + ","
+                        + csv(reject.message()));
+                writer.newLine();
+            }
+        }
+
+        return errorFile;
+    }
+
+    private static String csv(final String value) {
+        if (value == null) {
+            return "";
+        }
+
+        return value.contains(",") || value.contains("\"")
+                ? "\"" + value.replace("\"", "\"\"") + "\""
+                : value;
+    }
+
+    private record ReconciliationReject(long lineNumber, String loanId, double paymentAmount, String error,
+                                        String message) {
+    }
+
+    /**
+     * The rows for one loan, in file order.
+     */
+    private static final class LoanRows {
+
+        private long[] lines = new long[4];
+
+        private double[] amounts = new double[4];
+
+        private int size;
+
+        void add(final long line, final double amount) {
+            if (size == lines.length) {
+                lines = Arrays.copyOf(lines, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+
+            lines[size] = line;
+            amounts[size] = amount;
+            size++;
+        }
+
+        List<Double> amounts(final int from, final int to) {
+            List<Double> batch = new ArrayList<>(to - from);
+
+            for (int i = from; i < to; i++) {
+                batch.add(amounts[i]);
+            }
+
+            return batch;
+        }
+    }
+}
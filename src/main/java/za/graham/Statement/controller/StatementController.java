@@ -0,0 +1,68 @@
+package za.graham.Statement.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import za.graham.Statement.exception.StatementJobNotFoundException;
+import za.graham.Statement.exception.StatementJobRunningException;
+import za.graham.Statement.model.StatementJob;
+import za.graham.Statement.service.StatementJobService;
+import za.graham.common.api.ApiError;
+
+import java.net.URI;
+import java.time.YearMonth;
+
+/**
+ * REST controller that exposes the month-end statement generation job.
+ */
+@RestController
+@RequestMapping("/statements")
+public class StatementController {
+
+    @Autowired
+    StatementJobService statementJobService;
+
+    /**
+     * Starts generating statements for every loan with an outstanding balance during the given month.
+     * A run for a period that was interrupted earlier resumes from its checkpoints.
+     *
+     * @param period the statement month, formatted as {yyyy-MM}
+     * @param restart whether to discard earlier output for the period and start over
+     * @return 202 Accepted: with the run status and its location, 409 Conflict: if a run for another period, or a
+     * restart, is requested while a statement run is in progress
+     */
+    @PostMapping
+    public ResponseEntity<?> generateStatements(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth period,
+                                                @RequestParam(defaultValue = "false") Boolean restart) {
+        StatementJob job;
+
+        try {
+            job = statementJobService.startStatements(period, restart);
+        } catch (StatementJobRunningException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.CONFLICT, ex);
+        }
+
+        return ResponseEntity.accepted().location(URI.create("/statements/" + job.period())).body(job);
+    }
+
+    /**
+     * Retrieves the status of the latest statement run for the given month, including its summary once completed.
+     *
+     * @param period the statement month, formatted as {yyyy-MM}
+     * @return 200 OK: with the run status, 404 Not Found: if no run has been started for the period
+     */
+    @GetMapping("/{period}")
+    public ResponseEntity<?> getStatementJob(@PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+        StatementJob job;
+
+        try {
+            job = statementJobService.getStatementJob(period);
+        } catch (StatementJobNotFoundException ex) {
+            return ApiError.apiErrorResponseEntity(HttpStatus.NOT_FOUND, ex);
+        }
+
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+}
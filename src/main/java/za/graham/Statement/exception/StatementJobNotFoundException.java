@@ -0,0 +1,24 @@
+package za.graham.Statement.exception;
+
+/**
+ * Exception used when no statement run has been started for a period
+ */
+public class StatementJobNotFoundException extends RuntimeException {
+
+    public StatementJobNotFoundException() {
+        super();
+    }
+
+    public StatementJobNotFoundException(String message) {
+        super(message);
+    }
+
+    public StatementJobNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public StatementJobNotFoundException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,24 @@
+package za.graham.Statement.exception;
+
+/**
+ * Exception used when a statement run is requested while another run is still in progress
+ */
+public class StatementJobRunningException extends RuntimeException {
+
+    public StatementJobRunningException() {
+        super();
+    }
+
+    public StatementJobRunningException(String message) {
+        super(message);
+    }
+
+    public StatementJobRunningException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public StatementJobRunningException(Throwable cause) {
+        super(cause);
+    }
+
+}
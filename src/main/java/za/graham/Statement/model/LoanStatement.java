@@ -0,0 +1,18 @@
+package za.graham.Statement.model;
+
+import za.graham.Payment.model.LoanPaymentRecord;
+
+import java.util.List;
+
+/**
+ * Month-end statement for a single loan.
+ *
+ * @param loanId the unique identifier of the loan
+ * @param period the statement period, formatted as {yyyy-MM}
+ * @param openingBalance the outstanding balance at the start of the period
+ * @param payments the payments made during the period, in payment order
+ * @param closingBalance the outstanding balance at the end of the period
+ */
+public record LoanStatement(String loanId, String period, Double openingBalance, List<LoanPaymentRecord> payments,
+                            Double closingBalance) {
+}
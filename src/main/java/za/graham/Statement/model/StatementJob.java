@@ -0,0 +1,35 @@
+package za.graham.Statement.model;
+
+import java.time.Instant;
+
+/**
+ * Status of a statement run started in the background.
+ *
+ * @param period the statement period, formatted as {yyyy-MM}
+ * @param status whether the run is still going, completed or failed
+ * @param startedAt when the run was started
+ * @param finishedAt when the run completed or failed, {null} while it is running
+ * @param run the {StatementJobRun} summary, once the run has completed
+ * @param error why the run failed, if it did
+ */
+public record StatementJob(String period, Status status, Instant startedAt, Instant finishedAt, StatementJobRun run,
+                           String error) {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public static StatementJob running(final String period) {
+        return new StatementJob(period, Status.RUNNING, Instant.now(), null, null, null);
+    }
+
+    public StatementJob completed(final StatementJobRun run) {
+        return new StatementJob(period, Status.COMPLETED, startedAt, Instant.now(), run, null);
+    }
+
+    public StatementJob failed(final String error) {
+        return new StatementJob(period, Status.FAILED, startedAt, Instant.now(), null, error);
+    }
+}
@@ -0,0 +1,17 @@
+package za.graham.Statement.model;
+
+/**
+ * Outcome of a statement generation run.
+ *
+ * @param period the statement period, formatted as {yyyy-MM}
+ * @param outputDirectory the directory the statement files were written to
+ * @param partitions the number of loan ranges the book was split into
+ * @param resumedPartitions partitions picked up from checkpoints left by an earlier run, including completed ones
+ * @param loansScanned loans read during this run
+ * @param statementsWritten statements written during this run
+ * @param elapsedMillis wall-clock duration of this run
+ * @param loansPerSecond loans scanned per second during this run
+ */
+public record StatementJobRun(String period, String outputDirectory, int partitions, int resumedPartitions,
+                              long loansScanned, long statementsWritten, long elapsedMillis, double loansPerSecond) {
+}
@@ -0,0 +1,422 @@
+package za.graham.Statement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.Payment.model.LoanPaymentRecord;
+import za.graham.Payment.repository.PaymentRepository;
+import za.graham.Statement.exception.StatementJobNotFoundException;
+import za.graham.Statement.exception.StatementJobRunningException;
+import za.graham.Statement.model.LoanStatement;
+import za.graham.Statement.model.StatementJob;
+import za.graham.Statement.model.StatementJobRun;
+import za.graham.common.money.Cents;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates month-end statements for every loan with an outstanding balance during the period.
+ * <p>
+ * The loan book is split into contiguous loan ID ranges that are processed in parallel, one thread per range.
+ * Each range is read in pages: one keyset query for the page's loans and one ordered range scan for all of
+ * their payments, merged in loan ID order, so no per-loan queries are issued. Statements are streamed to one
+ * JSON-lines file per range, and a checkpoint is written after every page so that a failed or interrupted run
+ * resumes where it stopped when started again for the same period.
+ * <p>
+ * Runs started with {startStatements} go to a single background thread, so a run of the whole book is not tied to
+ * the HTTP request that started it. The latest status for each period is kept in memory for polling.
+ */
+@Service
+public class StatementJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementJobService.class);
+
+    private static final String PARTITIONS_FILE = "partitions";
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    PaymentRepository paymentRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${statements.output-directory:statements}")
+    String outputDirectory = "statements";
+
+    @Value("${statements.partitions:0}")
+    int partitions;
+
+    @Value("${statements.page-size:5000}")
+    int pageSize = 5000;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Map<String, StatementJob> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService jobRunner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "statement-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        // Interrupted partitions keep their checkpoints, so the run resumes when next started
+        jobRunner.shutdownNow();
+    }
+
+    /**
+     * Starts generating statements for the given period in the background, resuming from any checkpoints left by
+     * an earlier run. A repeated request for a period that is still running returns that run rather than failing,
+     * so a client that retries after a timeout rejoins it.
+     *
+     * @param period the month to generate statements for
+     * @param restart whether to discard earlier output and checkpoints for the period and start over
+     * @return the {StatementJob} status of the run, to be polled with {getStatementJob}
+     * @throws StatementJobRunningException if a run for another period, or a restart, is requested while a run is
+     * in progress
+     */
+    public synchronized StatementJob startStatements(final YearMonth period, final boolean restart)
+            throws StatementJobRunningException {
+        StatementJob latest = jobs.get(period.toString());
+
+        if (!restart && latest != null && latest.status() == StatementJob.Status.RUNNING) {
+            return latest;
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            throw new StatementJobRunningException("A statement run is already in progress");
+        }
+
+        StatementJob job = StatementJob.running(period.toString());
+        jobs.put(job.period(), job);
+
+        try {
+            jobRunner.execute(() -> runJob(job, period, restart));
+        } catch (RejectedExecutionException ex) {
+            finishJob(job.failed("Statement runs are shutting down"));
+            throw ex;
+        }
+
+        return job;
+    }
+
+    /**
+     * Retrieves the status of the latest statement run started for the given period.
+     *
+     * @param period the statement month
+     * @return the {StatementJob} status
+     * @throws StatementJobNotFoundException if no run has been started for the period since startup
+     */
+    public StatementJob getStatementJob(final YearMonth period) throws StatementJobNotFoundException {
+        StatementJob job = jobs.get(period.toString());
+
+        if (job == null) {
+            throw new StatementJobNotFoundException(String.format("No statement run started {period: %s}", period));
+        }
+
+        return job;
+    }
+
+    private void runJob(final StatementJob job, final YearMonth period, final boolean restart) {
+        StatementJob outcome = job.failed("Statement run stopped unexpectedly");
+
+        try {
+            outcome = job.completed(run(period, restart));
+        } catch (Exception ex) {
+            log.error("Statement run failed, start it again to resume from checkpoints {period: {}}", period, ex);
+            outcome = job.failed(ex.getMessage());
+        } finally {
+            finishJob(outcome);
+        }
+    }
+
+    /**
+     * Records the outcome and frees the job slot together, so a retry never sees the run finished but still
+     * holding the slot.
+     */
+    private synchronized void finishJob(final StatementJob outcome) {
+        jobs.put(outcome.period(), outcome);
+        running.set(false);
+    }
+
+    /**
+     * Generates statements for the given period on the calling thread, resuming from any checkpoints left by an
+     * earlier run.
+     *
+     * @param period the month to generate statements for
+     * @param restart whether to discard earlier output and checkpoints for the period and start over
+     * @return the {StatementJobRun} summary, including throughput
+     * @throws StatementJobRunningException if another statement run is already in progress
+     */
+    public StatementJobRun generateStatements(final YearMonth period, final boolean restart)
+            throws StatementJobRunningException {
+
+        if (!running.compareAndSet(false, true)) {
+            throw new StatementJobRunningException("A statement run is already in progress");
+        }
+
+        try {
+            return run(period, restart);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private StatementJobRun run(final YearMonth period, final boolean restart) throws IOException {
+        long start = System.nanoTime();
+        Path periodDirectory = Path.of(outputDirectory, period.toString());
+
+        if (restart) {
+            deleteDirectory(periodDirectory);
+        }
+
+        Files.createDirectories(periodDirectory);
+
+        List<String> bounds = loadOrComputePartitionBounds(periodDirectory);
+        Instant periodStart = period.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant periodEnd = period.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+        AtomicLong loansScanned = new AtomicLong();
+        AtomicLong statementsWritten = new AtomicLong();
+        AtomicInteger resumedPartitions = new AtomicInteger();
+
+        AtomicInteger workerCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, bounds.size()),
+                runnable -> new Thread(runnable, "statement-partition-" + workerCount.incrementAndGet()));
+
+        try {
+            List<Future<?>> results = new ArrayList<>(bounds.size());
+
+            for (int i = 0; i < bounds.size(); i++) {
+                // The last range is open-ended, so loans created after the bounds were stored are still covered
+                StatementPartition partition = new StatementPartition(i, i == 0 ? "" : bounds.get(i - 1),
+                        i == bounds.size() - 1 ? null : bounds.get(i), periodDirectory, period.toString(),
+                        periodStart, periodEnd);
+
+                results.add(workers.submit(() -> {
+                    processPartition(partition, loansScanned, statementsWritten, resumedPartitions);
+                    return null;
+                }));
+            }
+
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Statement run interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Statement partition failed, rerun to resume from checkpoints", ex.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        double loansPerSecond = loansScanned.get() * 1000.0 / Math.max(1, elapsedMillis);
+
+        log.info("Statements generated {period: {}, partitions: {}, loans: {}, statements: {}, elapsedMillis: {}, loansPerSecond: {}}",
+                period, bounds.size(), loansScanned.get(), statementsWritten.get(), elapsedMillis,
+                String.format("%.1f", loansPerSecond));
+
+        return new StatementJobRun(period.toString(), periodDirectory.toAbsolutePath().toString(), bounds.size(),
+                resumedPartitions.get(), loansScanned.get(), statementsWritten.get(), elapsedMillis, loansPerSecond);
+    }
+
+    /**
+     * Splits the loan book into ranges of roughly equal size, each identified by the last loan ID it contains.
+     * The bounds are stored with the output so that a resumed run uses exactly the same ranges.
+     */
+    private List<String> loadOrComputePartitionBounds(final Path periodDirectory) throws IOException {
+        Path partitionsFile = periodDirectory.resolve(PARTITIONS_FILE);
+
+        if (Files.exists(partitionsFile)) {
+            return Files.readAllLines(partitionsFile);
+        }
+
+        long loanCount = loanRepository.count();
+        int partitionCount = (int) Math.min(loanCount,
+                partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors());
+        List<String> bounds = new ArrayList<>(partitionCount);
+
+        for (int i = 1; i <= partitionCount; i++) {
+            long lastOffset = loanCount * i / partitionCount - 1;
+            bounds.addAll(loanRepository.findLoanIdsOrdered(PageRequest.of((int) lastOffset, 1)));
+        }
+
+        writeAtomically(partitionsFile, String.join("\n", bounds));
+        return bounds;
+    }
+
+    private void processPartition(final StatementPartition partition, final AtomicLong loansScanned,
+                                  final AtomicLong statementsWritten, final AtomicInteger resumedPartitions)
+            throws IOException {
+        Properties checkpoint = partition.readCheckpoint();
+
+        if (!checkpoint.isEmpty()) {
+            resumedPartitions.incrementAndGet();
+        }
+
+        if (Boolean.parseBoolean(checkpoint.getProperty("done"))) {
+            return;
+        }
+
+        String afterLoanId = checkpoint.getProperty("lastLoanId", partition.afterLoanId());
+        long bytesWritten = Long.parseLong(checkpoint.getProperty("bytes", "0"));
+
+        try (FileOutputStream file = new FileOutputStream(partition.outputFile().toFile(), true)) {
+            FileChannel channel = file.getChannel();
+            // Drop anything written after the last checkpoint by an interrupted run
+            channel.truncate(bytesWritten);
+            channel.position(bytesWritten);
+            BufferedOutputStream out = new BufferedOutputStream(file, 1 << 16);
+
+            while (true) {
+                List<Loan> loans = loanRepository.findLoanRange(afterLoanId, partition.lastLoanId(),
+                        partition.periodEnd(), Limit.of(pageSize));
+
+                if (loans.isEmpty()) {
+                    break;
+                }
+
+                String pageLastLoanId = loans.get(loans.size() - 1).getLoanId();
+                List<LoanPaymentRecord> payments = paymentRepository.findPaymentRange(afterLoanId, pageLastLoanId,
+                        partition.periodEnd());
+
+                for (LoanStatement statement : buildStatements(loans, payments, partition)) {
+                    byte[] line = objectMapper.writeValueAsBytes(statement);
+                    out.write(line);
+                    out.write('\n');
+                    bytesWritten += line.length + 1;
+                    statementsWritten.incrementAndGet();
+                }
+
+                out.flush();
+                channel.force(false);
+                loansScanned.addAndGet(loans.size());
+                afterLoanId = pageLastLoanId;
+                partition.writeCheckpoint(afterLoanId, bytesWritten, false);
+            }
+
+            partition.writeCheckpoint(afterLoanId, bytesWritten, true);
+        }
+    }
+
+    /**
+     * Merges a page of loans with their payments, both ordered by loan ID, into statements.
+     * Loans that were already paid off before the period starts get no statement. Balances are summed in whole
+     * cents, so a loan paid off in several payments never shows a fraction of a cent still owing.
+     */
+    private List<LoanStatement> buildStatements(final List<Loan> loans, final List<LoanPaymentRecord> payments,
+                                                final StatementPartition partition) {
+        List<LoanStatement> statements = new ArrayList<>(loans.size());
+        int paymentIndex = 0;
+
+        for (Loan loan : loans) {
+            long paidBeforePeriod = 0;
+            List<LoanPaymentRecord> periodPayments = new ArrayList<>();
+
+            for (; paymentIndex < payments.size() && payments.get(paymentIndex).loanId().equals(loan.getLoanId()); paymentIndex++) {
+                LoanPaymentRecord payment = payments.get(paymentIndex);
+
+                if (payment.paymentDate().isBefore(partition.periodStart())) {
+                    paidBeforePeriod += Cents.toCents(payment.paymentAmount());
+                } else {
+                    periodPayments.add(payment);
+                }
+            }
+
+            long openingBalance = Cents.toCents(loan.getLoanAmount()) - paidBeforePeriod;
+
+            if (openingBalance <= 0) {
+                continue;
+            }
+
+            long closingBalance = openingBalance - periodPayments.stream()
+                    .mapToLong(payment -> Cents.toCents(payment.paymentAmount()))
+                    .sum();
+
+            statements.add(new LoanStatement(loan.getLoanId(), partition.period(), Cents.toAmount(openingBalance),
+                    periodPayments, Cents.toAmount(closingBalance)));
+        }
+
+        return statements;
+    }
+
+    private static void writeAtomically(final Path target, final String content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(temp, content);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void deleteDirectory(final Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+
+        Files.delete(directory);
+    }
+
+    /**
+     * One contiguous loan ID range of the book, covering IDs after {afterLoanId} up to and including {lastLoanId},
+     * or to the end of the book when {lastLoanId} is {null}.
+     */
+    private record StatementPartition(int index, String afterLoanId, String lastLoanId, Path directory, String period,
+                                      Instant periodStart, Instant periodEnd) {
+
+        Path outputFile() {
+            return directory.resolve(String.format("statements-%04d.jsonl", index));
+        }
+
+        Path checkpointFile() {
+            return directory.resolve(String.format("statements-%04d.checkpoint", index));
+        }
+
+        Properties readCheckpoint() throws IOException {
+            Properties checkpoint = new Properties();
+
+            if (Files.exists(checkpointFile())) {
+                try (Reader reader = Files.newBufferedReader(checkpointFile())) {
+                    checkpoint.load(reader);
+                }
+            }
+
+            return checkpoint;
+        }
+
+        void writeCheckpoint(final String lastLoanId, final long bytes, final boolean done) throws IOException {
+            writeAtomically(checkpointFile(), "lastLoanId=" + lastLoanId + "\nbytes=" + bytes + "\ndone=" + done + "\n");
+        }
+    }
+}
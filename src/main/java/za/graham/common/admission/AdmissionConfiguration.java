@@ -0,0 +1,28 @@
+package za.graham.common.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers admission control in front of the payment endpoint.
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<PaymentAdmissionFilter> paymentAdmissionFilter(final AdmissionProperties properties,
+                                                                                  final ObjectMapper objectMapper,
+                                                                                  final MeterRegistry meterRegistry) {
+        FilterRegistrationBean<PaymentAdmissionFilter> registration =
+                new FilterRegistrationBean<>(new PaymentAdmissionFilter(properties, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/payments");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
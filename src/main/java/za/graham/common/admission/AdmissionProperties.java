@@ -0,0 +1,58 @@
+package za.graham.common.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for admission control on the payment endpoint, bound from {payments.admission.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.admission")
+public class AdmissionProperties {
+
+    /** Whether admission control is applied at all. */
+    private boolean enabled = true;
+
+    /** Maximum number of payments processed concurrently, and the starting limit when adaptive. */
+    private int maxConcurrent = 64;
+
+    /** Whether the concurrency limit adapts to observed latency. */
+    private boolean adaptive = false;
+
+    /** Lower bound for the adaptive concurrency limit. */
+    private int minConcurrent = 4;
+
+    /** Upper bound for the adaptive concurrency limit. */
+    private int maxConcurrentCeiling = 256;
+
+    /** Latency above which the adaptive limit is reduced. */
+    private long targetLatencyMillis = 200;
+
+    /**
+     * Tokens added to each client's bucket per second, 0 disables per-client rate limiting. Off by default: behind a
+     * load balancer every caller shares the balancer's address, so only enable it with {trustedProxies} configured
+     * or when clients connect directly.
+     */
+    private double clientRatePerSecond = 0;
+
+    /** Maximum tokens a client's bucket can hold. */
+    private int clientBurst = 100;
+
+    /** Request header identifying the client, honoured only on requests from a trusted proxy. */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * Remote addresses allowed to identify the client with {clientHeader}. Requests from any other address are
+     * limited by that address, so a caller cannot reset its limit by changing the header.
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /** Maximum number of client buckets kept; idle buckets are swept out to make room. */
+    private int maxTrackedClients = 10_000;
+
+    /** Value of the Retry-After header when the concurrency limit is reached. */
+    private int retryAfterSeconds = 1;
+}
@@ -0,0 +1,94 @@
+package za.graham.common.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking limit on the number of requests in flight.
+ * When adaptive, the limit follows an additive-increase/multiplicative-decrease policy:
+ * it grows by one after a full limit's worth of requests complete under the target latency,
+ * and shrinks by 10% (at most once per window) when a request exceeds it.
+ */
+public class ConcurrencyLimiter {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger successesSinceIncrease = new AtomicInteger();
+
+    private final boolean adaptive;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long targetLatencyNanos;
+
+    private volatile int limit;
+
+    private volatile long lastDecreaseNanos;
+
+    public ConcurrencyLimiter(final AdmissionProperties properties) {
+        this.adaptive = properties.isAdaptive();
+        this.minLimit = Math.max(1, properties.getMinConcurrent());
+        this.maxLimit = Math.max(properties.getMaxConcurrent(), properties.getMaxConcurrentCeiling());
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(properties.getTargetLatencyMillis());
+        this.limit = Math.max(1, properties.getMaxConcurrent());
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * Claims a slot if fewer than the current limit are in flight.
+     *
+     * @return true if the caller may proceed and must later call {release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+
+            if (current >= limit) {
+                return false;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a slot claimed by {tryAcquire} and feeds the observed latency to the adaptive limit.
+     *
+     * @param latencyNanos how long the request held the slot
+     */
+    public void release(final long latencyNanos) {
+        inFlight.decrementAndGet();
+
+        if (adaptive) {
+            adjust(latencyNanos);
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    private void adjust(final long latencyNanos) {
+        long now = System.nanoTime();
+
+        if (latencyNanos > targetLatencyNanos) {
+            // Back off at most once per target-latency window so one burst of slow requests reduces the limit once
+            if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                lastDecreaseNanos = now;
+                successesSinceIncrease.set(0);
+                limit = Math.max(minLimit, (int) (limit * 0.9));
+            }
+        } else if (successesSinceIncrease.incrementAndGet() >= limit) {
+            successesSinceIncrease.set(0);
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package za.graham.common.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import za.graham.common.api.ApiError;
+import za.graham.common.exception.AdmissionRejectedException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servlet filter that applies admission control to payment submissions.
+ * Requests are first checked against the submitting client's token bucket (429 when empty),
+ * then against the in-flight concurrency limit (503 when full). Rejected requests are answered
+ * immediately with a Retry-After header instead of waiting in the container's queue.
+ * <p>
+ * Clients are identified by remote address, or by the client header when the request comes from a trusted proxy.
+ * Buckets live in a concurrent map, so tracking a client takes no global lock. About once a second the request that
+ * finds the sweep due removes the buckets that have refilled, since forgetting an idle client loses nothing. At most
+ * {maxTrackedClients} are tracked; a new client beyond that is subject only to the concurrency limit until a sweep
+ * makes room.
+ */
+public class PaymentAdmissionFilter extends OncePerRequestFilter {
+
+    private final AdmissionProperties properties;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final ObjectMapper objectMapper;
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
+
+    private final Counter admitted;
+
+    private final Counter rejectedByConcurrency;
+
+    private final Counter rejectedByRate;
+
+    public PaymentAdmissionFilter(final AdmissionProperties properties, final ObjectMapper objectMapper,
+                                  final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.concurrencyLimiter = new ConcurrencyLimiter(properties);
+
+        Gauge.builder("payments.admission.inflight", concurrencyLimiter, ConcurrencyLimiter::getInFlight)
+                .description("Payment requests currently admitted and being processed")
+                .register(meterRegistry);
+        Gauge.builder("payments.admission.limit", concurrencyLimiter, ConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit for payment requests")
+                .register(meterRegistry);
+        Gauge.builder("payments.admission.clients", clientBuckets, Map::size)
+                .description("Clients with a tracked token bucket")
+                .register(meterRegistry);
+
+        this.admitted = Counter.builder("payments.admission.admitted").register(meterRegistry);
+        this.rejectedByConcurrency = Counter.builder("payments.admission.rejected")
+                .tag("reason", "concurrency")
+                .register(meterRegistry);
+        this.rejectedByRate = Counter.builder("payments.admission.rejected")
+                .tag("reason", "rate")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !properties.isEnabled() || !HttpMethod.POST.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        long waitNanos = consumeClientToken(clientId(request));
+
+        if (waitNanos > 0) {
+            rejectedByRate.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS,
+                    (int) Math.max(1, Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1))),
+                    "Client payment rate limit exceeded");
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            rejectedByConcurrency.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, properties.getRetryAfterSeconds(),
+                    "Payment processing is at capacity");
+            return;
+        }
+
+        admitted.increment();
+        long start = System.nanoTime();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - start);
+        }
+    }
+
+    ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    private String clientId(final HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+
+        if (!properties.getTrustedProxies().contains(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        String clientId = request.getHeader(properties.getClientHeader());
+        return clientId != null && !clientId.isBlank() ? clientId : remoteAddr;
+    }
+
+    private long consumeClientToken(final String clientId) {
+        if (properties.getClientRatePerSecond() <= 0) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        long nextSweep = nextSweepNanos.get();
+
+        if (now - nextSweep >= 0 && nextSweepNanos.compareAndSet(nextSweep, now + SWEEP_INTERVAL_NANOS)) {
+            sweepIdleClients();
+        }
+
+        TokenBucket bucket = clientBuckets.get(clientId);
+
+        if (bucket == null) {
+            if (clientBuckets.size() >= properties.getMaxTrackedClients()) {
+                return 0;
+            }
+
+            bucket = clientBuckets.computeIfAbsent(clientId,
+                    id -> new TokenBucket(properties.getClientRatePerSecond(), properties.getClientBurst()));
+        }
+
+        return bucket.tryConsume();
+    }
+
+    /**
+     * Forgets every client whose bucket has refilled.
+     */
+    void sweepIdleClients() {
+        clientBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private void reject(final HttpServletResponse response, final HttpStatus status, final int retryAfterSeconds,
+                        final String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiError.apiErrorResponseEntity(status, new AdmissionRejectedException(message)).getBody());
+    }
+}
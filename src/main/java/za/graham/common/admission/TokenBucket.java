@@ -0,0 +1,54 @@
+package za.graham.common.admission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket for a single client, refilled continuously at a fixed rate up to its capacity.
+ */
+public class TokenBucket {
+
+    private final double ratePerNano;
+
+    private final double capacity;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    public TokenBucket(final double ratePerSecond, final int capacity) {
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    public synchronized long tryConsume() {
+        refill();
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+
+        return (long) Math.ceil((1 - tokens) / ratePerNano);
+    }
+
+    /**
+     * @return true if the bucket is full, meaning the client has been idle long enough to forget
+     */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,19 @@
+package za.graham.common.audit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the audit log and ties its background writer to the application lifecycle.
+ */
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public AuditLog auditLog(final AuditProperties properties, final MeterRegistry meterRegistry) {
+        return new AuditLog(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+package za.graham.common.audit;
+
+/**
+ * A fixed-schema audit record for one API request.
+ *
+ * @param timestamp epoch milliseconds at which the request completed
+ * @param action the audited operation
+ * @param loanId the loan the request targeted, if known
+ * @param paymentId the payment created by the request, if any
+ * @param amount the loan or payment amount submitted
+ * @param status the HTTP status returned
+ * @param outcome {SUCCESS}, or the simple name of the exception that rejected the request
+ * @param latencyMicros time spent handling the request
+ */
+public record AuditEvent(long timestamp, Action action, String loanId, String paymentId, Double amount, int status,
+                         String outcome, long latencyMicros) {
+
+    public static final String SUCCESS = "SUCCESS";
+
+    public enum Action {
+        LOAN_CREATED,
+        PAYMENT_PROCESSED
+    }
+}
@@ -0,0 +1,382 @@
+package za.graham.common.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous audit log for API requests.
+ * <p>
+ * Request threads only enqueue a fixed-schema {AuditEvent} on a bounded lock-free queue. A single background thread
+ * formats the events as JSON lines and appends them to a rolling file, flushing whenever the queue runs empty.
+ * When the queue is full the configured {AuditProperties.OverflowPolicy} decides whether the event is dropped or
+ * the request waits for space; every event that is not written is counted in {audit.events.dropped}.
+ * If the file cannot be opened, whether at start or when rolling, the writer tries again on a later write rather than
+ * staying closed.
+ */
+public class AuditLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /** Minimum time between attempts to reopen a file that could not be opened. */
+    long reopenIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+
+    private final AuditProperties properties;
+
+    private final AuditRingBuffer<AuditEvent> queue;
+
+    private final Counter written;
+
+    private final Counter droppedQueueFull;
+
+    private final Counter droppedWriteFailed;
+
+    private final Path directory;
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    private BufferedWriter writer;
+
+    private long fileBytes;
+
+    private long nextOpenAttemptNanos = System.nanoTime();
+
+    public AuditLog(final AuditProperties properties, final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.queue = new AuditRingBuffer<>(properties.getQueueCapacity());
+        this.directory = Path.of(properties.getDirectory());
+        this.written = meterRegistry.counter("audit.events.written");
+        this.droppedQueueFull = meterRegistry.counter("audit.events.dropped", "reason", "queue_full");
+        this.droppedWriteFailed = meterRegistry.counter("audit.events.dropped", "reason", "write_failed");
+
+        meterRegistry.gauge("audit.queue.size", queue, AuditRingBuffer::size);
+    }
+
+    /**
+     * Starts the background writer.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        writerThread = new Thread(this::drain, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Records an event without waiting for it to be written.
+     *
+     * @param event the event to record
+     * @return {false} if the event was dropped because the queue stayed full
+     */
+    public boolean record(final AuditEvent event) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+
+        if (queue.offer(event)) {
+            return true;
+        }
+
+        if (properties.getOverflowPolicy() == AuditProperties.OverflowPolicy.BLOCK && running) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getBlockTimeoutMillis());
+
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+
+                if (queue.offer(event)) {
+                    return true;
+                }
+            }
+        }
+
+        droppedQueueFull.increment();
+        return false;
+    }
+
+    /**
+     * Records the outcome of a request that started at {startNanos}.
+     */
+    public boolean record(final AuditEvent.Action action, final String loanId, final String paymentId,
+                          final Double amount, final int status, final String outcome, final long startNanos) {
+        return record(new AuditEvent(System.currentTimeMillis(), action, loanId, paymentId, amount, status, outcome,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)));
+    }
+
+    /** Number of events waiting to be written. */
+    public int pending() {
+        return queue.size();
+    }
+
+    /** Total events dropped, whether because the queue was full or the file could not be written. */
+    public long dropped() {
+        return (long) (droppedQueueFull.count() + droppedWriteFailed.count());
+    }
+
+    /**
+     * Stops the writer after it has written every event already queued.
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(writerThread);
+
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        tryOpen();
+
+        boolean unflushed = false;
+
+        while (true) {
+            AuditEvent event = queue.poll();
+
+            if (event == null) {
+                if (unflushed) {
+                    flush();
+                    unflushed = false;
+                }
+
+                if (!running && queue.size() == 0) {
+                    break;
+                }
+
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            write(event);
+            unflushed = true;
+        }
+
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            log.warn("Audit log could not be closed", ex);
+        }
+    }
+
+    private void write(final AuditEvent event) {
+        if (writer == null && !tryOpen()) {
+            droppedWriteFailed.increment();
+            return;
+        }
+
+        line.setLength(0);
+        format(event, line);
+        int lineBytes = utf8Length(line);
+
+        try {
+            if (fileBytes + lineBytes > properties.getMaxFileBytes() && fileBytes > 0) {
+                roll();
+            }
+
+            writer.append(line);
+            fileBytes += lineBytes;
+            written.increment();
+        } catch (IOException ex) {
+            droppedWriteFailed.increment();
+            log.warn("Audit event could not be written", ex);
+        }
+    }
+
+    private void flush() {
+        try {
+            if (writer != null) {
+                writer.flush();
+            }
+        } catch (IOException ex) {
+            log.warn("Audit log could not be flushed", ex);
+        }
+    }
+
+    /**
+     * Opens the active file, at most once per {reopenIntervalNanos} after a failure.
+     *
+     * @return true if the file is open
+     */
+    private boolean tryOpen() {
+        long now = System.nanoTime();
+
+        if (now - nextOpenAttemptNanos < 0) {
+            return false;
+        }
+
+        nextOpenAttemptNanos = now + reopenIntervalNanos;
+
+        try {
+            open();
+            return true;
+        } catch (IOException ex) {
+            log.error("Audit log could not be opened {directory: {}}", directory.toAbsolutePath(), ex);
+            return false;
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(properties.getFileName());
+
+        fileBytes = Files.exists(file) ? Files.size(file) : 0;
+        writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Shifts {audit.N.jsonl} to {audit.N+1.jsonl}, discarding the oldest, moves the active file to
+     * {audit.1.jsonl} and opens a new active file. If any step fails the log is left closed, to be reopened
+     * on a later write.
+     */
+    private void roll() throws IOException {
+        BufferedWriter active = writer;
+        writer = null;
+        active.close();
+
+        for (int i = properties.getMaxHistory(); i >= 1; i--) {
+            Path source = i == 1 ? directory.resolve(properties.getFileName()) : rolledFile(i - 1);
+
+            if (i == properties.getMaxHistory()) {
+                Files.deleteIfExists(rolledFile(i));
+            }
+
+            if (Files.exists(source)) {
+                Files.move(source, rolledFile(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        if (properties.getMaxHistory() < 1) {
+            Files.deleteIfExists(directory.resolve(properties.getFileName()));
+        }
+
+        open();
+    }
+
+    Path rolledFile(final int index) {
+        String fileName = properties.getFileName();
+        int extension = fileName.lastIndexOf('.');
+
+        return directory.resolve(extension < 0
+                ? fileName + "." + index
+                : fileName.substring(0, extension) + "." + index + fileName.substring(extension));
+    }
+
+    /**
+     * Formats an event as one JSON line; the schema is fixed, so fields are written directly rather than
+     * through the object mapper.
+     */
+    static void format(final AuditEvent event, final StringBuilder out) {
+        out.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(event.timestamp())).append('"');
+        out.append(",\"action\":\"").append(event.action()).append('"');
+        appendString(out, "loanId", event.loanId());
+        appendString(out, "paymentId", event.paymentId());
+        appendNumber(out, "amount", event.amount());
+        out.append(",\"status\":").append(event.status());
+        appendString(out, "outcome", event.outcome());
+        out.append(",\"latencyMicros\":").append(event.latencyMicros());
+        out.append("}\n");
+    }
+
+    /**
+     * Appends a number as JSON does it elsewhere in the API, quoting NaN and the infinities, which JSON cannot
+     * represent as numbers.
+     */
+    private static void appendNumber(final StringBuilder out, final String name, final Double value) {
+        if (value != null && !Double.isFinite(value)) {
+            appendString(out, name, Double.toString(value));
+            return;
+        }
+
+        out.append(",\"").append(name).append("\":").append(value);
+    }
+
+    /**
+     * The number of bytes {text} takes in UTF-8, so the file size limit holds for non-ASCII content.
+     */
+    static int utf8Length(final CharSequence text) {
+        int bytes = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+
+        return bytes;
+    }
+
+    private static void appendString(final StringBuilder out, final String name, final String value) {
+        out.append(",\"").append(name).append("\":");
+
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+
+        out.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+
+        out.append('"');
+    }
+}
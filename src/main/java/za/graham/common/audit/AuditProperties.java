@@ -0,0 +1,44 @@
+package za.graham.common.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the asynchronous audit log, bound from {audit.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "audit")
+public class AuditProperties {
+
+    /** What a request thread does when the audit queue is full. */
+    public enum OverflowPolicy {
+        /** Discard the event and count it as dropped. */
+        DROP,
+        /** Wait for space in the queue, up to {blockTimeoutMillis}, before dropping the event. */
+        BLOCK
+    }
+
+    /** Whether audit events are recorded at all. */
+    private boolean enabled = true;
+
+    /** Directory the audit files are written to. */
+    private String directory = "audit";
+
+    /** Name of the active audit file; rolled files get a numeric suffix, {audit.1.jsonl} being the newest. */
+    private String fileName = "audit.jsonl";
+
+    /** Number of events the queue holds, rounded up to a power of two. */
+    private int queueCapacity = 65_536;
+
+    /** What to do when the queue is full. */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /** Longest a request thread waits for queue space under the BLOCK policy. */
+    private long blockTimeoutMillis = 1_000;
+
+    /** Size at which the active file is rolled. */
+    private long maxFileBytes = 64L * 1024 * 1024;
+
+    /** Number of rolled files kept. */
+    private int maxHistory = 10;
+}
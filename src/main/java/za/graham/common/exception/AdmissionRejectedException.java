@@ -0,0 +1,24 @@
+package za.graham.common.exception;
+
+/**
+ * Exception used when a request is turned away by admission control before it is processed
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    public AdmissionRejectedException() {
+        super();
+    }
+
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+
+    public AdmissionRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public AdmissionRejectedException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,13 @@
+package za.graham.common.flightrecorder;
+
+/**
+ * Values shared by the flight recorder events.
+ */
+public final class FlightRecorderEvents {
+
+    /** Outcome recorded when an operation completes without an exception. */
+    public static final String SUCCESS = "SUCCESS";
+
+    private FlightRecorderEvents() {
+    }
+}
@@ -0,0 +1,23 @@
+package za.graham.common.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering one call to {UniqueIdGenerator.generateUniqueId}.
+ */
+@Name("za.graham.IdGeneration")
+@Label("ID Generation")
+@Category({"Loan Service", "Identifiers"})
+@StackTrace(false)
+public class IdGenerationEvent extends Event {
+
+    @Label("Prefix")
+    public String prefix;
+
+    @Label("ID")
+    public String id;
+}
@@ -0,0 +1,34 @@
+package za.graham.common.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event covering one call to {LoanService.createLoan}.
+ */
+@Name("za.graham.LoanCreation")
+@Label("Loan Creation")
+@Category({"Loan Service", "Loans"})
+@StackTrace(false)
+public class LoanCreationEvent extends Event {
+
+    @Label("Loan ID")
+    public String loanId;
+
+    @Label("Loan Amount")
+    public double loanAmount;
+
+    @Label("Term")
+    public int term;
+
+    @Label("Persist")
+    @Timespan
+    public long persist;
+
+    @Label("Outcome")
+    public String outcome;
+}
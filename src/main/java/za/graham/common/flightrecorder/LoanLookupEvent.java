@@ -0,0 +1,23 @@
+package za.graham.common.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering one call to {LoanService.getLoan}.
+ */
+@Name("za.graham.LoanLookup")
+@Label("Loan Lookup")
+@Category({"Loan Service", "Loans"})
+@StackTrace(false)
+public class LoanLookupEvent extends Event {
+
+    @Label("Loan ID")
+    public String loanId;
+
+    @Label("Outcome")
+    public String outcome;
+}
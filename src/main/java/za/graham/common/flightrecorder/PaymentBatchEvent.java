@@ -0,0 +1,50 @@
+package za.graham.common.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event covering one validation and commit cycle for a batch of payments on the same loan,
+ * broken down by stage.
+ */
+@Name("za.graham.PaymentBatch")
+@Label("Payment Batch")
+@Category({"Loan Service", "Payments"})
+@Description("Payments on one loan validated and saved together")
+@StackTrace(false)
+public class PaymentBatchEvent extends Event {
+
+    @Label("Loan ID")
+    public String loanId;
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Accepted")
+    public int accepted;
+
+    @Label("Payments Summed")
+    @Description("Existing payments read to compute the outstanding balance")
+    public int paymentsSummed;
+
+    @Label("Loan Lookup")
+    @Timespan
+    public long loanLookup;
+
+    @Label("Balance Calculation")
+    @Timespan
+    public long balanceCalculation;
+
+    @Label("Persist")
+    @Timespan
+    public long persist;
+
+    @Label("Outcome")
+    @Description("SUCCESS, or the simple name of the exception that failed the whole batch")
+    public String outcome;
+}
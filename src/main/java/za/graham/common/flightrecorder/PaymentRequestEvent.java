@@ -0,0 +1,36 @@
+package za.graham.common.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event covering one call to {PaymentService.processLoanPayment}, from validation to the
+ * payment being saved or rejected.
+ */
+@Name("za.graham.PaymentRequest")
+@Label("Payment Request")
+@Category({"Loan Service", "Payments"})
+@Description("A payment submitted against a loan")
+@StackTrace(false)
+public class PaymentRequestEvent extends Event {
+
+    @Label("Loan ID")
+    public String loanId;
+
+    @Label("Payment Amount")
+    public double paymentAmount;
+
+    @Label("Queue Wait")
+    @Description("Time spent waiting for the loan's payment lock")
+    @Timespan
+    public long queueWait;
+
+    @Label("Outcome")
+    @Description("SUCCESS, or the simple name of the exception that rejected the payment")
+    public String outcome;
+}
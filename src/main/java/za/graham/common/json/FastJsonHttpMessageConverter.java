@@ -0,0 +1,49 @@
+package za.graham.common.json;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Writes {Loan}, {LoanQueryResult}, {Payment} and {ApiError} response bodies with {JsonSerializers} instead of the object mapper.
+ * <p>
+ * The body is built in the calling thread's reusable buffer, so the content length is known up front and the
+ * bytes go to the response stream in one write. Other types, and all request bodies, are left to the default
+ * Jackson converter.
+ */
+public class FastJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public FastJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(@NonNull final Class<?> clazz) {
+        return JsonSerializers.supports(clazz);
+    }
+
+    @Override
+    protected boolean canRead(final MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @NonNull
+    protected Object readInternal(@NonNull final Class<?> clazz, @NonNull final HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading is not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(@NonNull final Object value, @NonNull final HttpOutputMessage outputMessage)
+            throws IOException {
+        JsonBuffer buffer = JsonSerializers.write(JsonBuffer.acquire(), value);
+
+        outputMessage.getHeaders().setContentLength(buffer.size());
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
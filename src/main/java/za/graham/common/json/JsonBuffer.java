@@ -0,0 +1,322 @@
+package za.graham.common.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Growable UTF-8 byte buffer with the few JSON primitives our response types need.
+ * <p>
+ * Output matches Jackson's defaults as configured by Spring Boot: the same string escapes (the short forms for
+ * backspace, tab, newline, form feed and carriage return, six-character upper-case hex escapes for other control
+ * characters and for surrogates, everything else as UTF-8), {Double.toString} for numbers (quoted when not finite)
+ * and ISO-8601 for instants. One buffer is kept per thread and reused across requests; the date and time of the
+ * last second written are cached, since most timestamps in a response share it.
+ */
+final class JsonBuffer {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+    private static final byte[] NULL = "null".getBytes();
+
+    private static final byte[] TRUE = "true".getBytes();
+
+    private static final byte[] FALSE = "false".getBytes();
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Buffers that grew beyond this are not kept for reuse, so one large response does not pin memory. */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    /** First and last second that format as a four-digit year, 0000-01-01T00:00:00Z and 9999-12-31T23:59:59Z. */
+    private static final long MIN_FAST_SECOND = -62_167_219_200L;
+
+    private static final long MAX_FAST_SECOND = 253_402_300_799L;
+
+    private static final ThreadLocal<JsonBuffer> BUFFERS = ThreadLocal.withInitial(JsonBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+    private int size;
+
+    private long cachedSecond = Long.MIN_VALUE;
+
+    private final byte[] cachedDateTime = new byte[19];
+
+    /**
+     * Returns this thread's buffer, emptied.
+     */
+    static JsonBuffer acquire() {
+        JsonBuffer buffer = BUFFERS.get();
+
+        if (buffer.bytes.length > MAX_RETAINED_CAPACITY) {
+            buffer.bytes = new byte[INITIAL_CAPACITY];
+        }
+
+        buffer.size = 0;
+        return buffer;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(final OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    JsonBuffer raw(final char c) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Writes an object member name, preceded by a comma unless it is the first member.
+     */
+    JsonBuffer name(final String name, final boolean first) {
+        ensureCapacity(name.length() + 4);
+
+        if (!first) {
+            bytes[size++] = ',';
+        }
+
+        bytes[size++] = '"';
+
+        for (int i = 0; i < name.length(); i++) {
+            bytes[size++] = (byte) name.charAt(i);
+        }
+
+        bytes[size++] = '"';
+        bytes[size++] = ':';
+        return this;
+    }
+
+    JsonBuffer nullValue() {
+        return ascii(NULL);
+    }
+
+    JsonBuffer value(final boolean value) {
+        return ascii(value ? TRUE : FALSE);
+    }
+
+    JsonBuffer value(final Integer value) {
+        if (value == null) {
+            return nullValue();
+        }
+
+        return asciiString(Integer.toString(value));
+    }
+
+    JsonBuffer value(final Double value) {
+        if (value == null) {
+            return nullValue();
+        }
+
+        if (!Double.isFinite(value)) {
+            // Quoted, as the object mapper does by default, since JSON has no literal for them
+            return value(Double.toString(value));
+        }
+
+        return asciiString(Double.toString(value));
+    }
+
+    JsonBuffer value(final Enum<?> value) {
+        if (value == null) {
+            return nullValue();
+        }
+
+        return value(value.name());
+    }
+
+    JsonBuffer value(final String value) {
+        if (value == null) {
+            return nullValue();
+        }
+
+        int length = value.length();
+        ensureCapacity(length + 2);
+        bytes[size++] = '"';
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                if (size == bytes.length) {
+                    ensureCapacity(length - i + 1);
+                }
+
+                bytes[size++] = (byte) c;
+            } else {
+                writeSpecial(c);
+            }
+        }
+
+        ensureCapacity(1);
+        bytes[size++] = '"';
+        return this;
+    }
+
+    /**
+     * Writes an instant as ISO-8601 the way {Instant.toString} does: seconds always, and the fraction in
+     * groups of three digits, only as many as are needed.
+     */
+    JsonBuffer value(final Instant value) {
+        if (value == null) {
+            return nullValue();
+        }
+
+        long second = value.getEpochSecond();
+
+        if (second < MIN_FAST_SECOND || second > MAX_FAST_SECOND) {
+            return value(value.toString());
+        }
+
+        if (second != cachedSecond) {
+            cacheDateTime(second);
+        }
+
+        ensureCapacity(32);
+        bytes[size++] = '"';
+        System.arraycopy(cachedDateTime, 0, bytes, size, cachedDateTime.length);
+        size += cachedDateTime.length;
+
+        int nano = value.getNano();
+
+        if (nano != 0) {
+            bytes[size++] = '.';
+
+            if (nano % 1_000_000 == 0) {
+                digits(nano / 1_000_000, 3);
+            } else if (nano % 1_000 == 0) {
+                digits(nano / 1_000, 6);
+            } else {
+                digits(nano, 9);
+            }
+        }
+
+        bytes[size++] = 'Z';
+        bytes[size++] = '"';
+        return this;
+    }
+
+    private void cacheDateTime(final long second) {
+        long day = Math.floorDiv(second, 86_400);
+        int secondOfDay = (int) Math.floorMod(second, 86_400);
+        LocalDate date = LocalDate.ofEpochDay(day);
+
+        int saved = size;
+        byte[] target = bytes;
+        bytes = cachedDateTime;
+        size = 0;
+
+        digits(date.getYear(), 4);
+        bytes[size++] = '-';
+        digits(date.getMonthValue(), 2);
+        bytes[size++] = '-';
+        digits(date.getDayOfMonth(), 2);
+        bytes[size++] = 'T';
+        digits(secondOfDay / 3600, 2);
+        bytes[size++] = ':';
+        digits(secondOfDay / 60 % 60, 2);
+        bytes[size++] = ':';
+        digits(secondOfDay % 60, 2);
+
+        bytes = target;
+        size = saved;
+        cachedSecond = second;
+    }
+
+    /**
+     * Writes a non-negative number zero-padded to exactly {width} digits; capacity must already be ensured.
+     */
+    private void digits(int value, final int width) {
+        for (int i = size + width - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        size += width;
+    }
+
+    /**
+     * Escapes or UTF-8 encodes one character.
+     */
+    private void writeSpecial(final char c) {
+        ensureCapacity(6);
+
+        if (c < 0x80) {
+            bytes[size++] = '\\';
+
+            switch (c) {
+                case '"' -> bytes[size++] = '"';
+                case '\\' -> bytes[size++] = '\\';
+                case '\b' -> bytes[size++] = 'b';
+                case '\t' -> bytes[size++] = 't';
+                case '\n' -> bytes[size++] = 'n';
+                case '\f' -> bytes[size++] = 'f';
+                case '\r' -> bytes[size++] = 'r';
+                default -> {
+                    bytes[size++] = 'u';
+                    bytes[size++] = '0';
+                    bytes[size++] = '0';
+                    bytes[size++] = HEX[c >> 4];
+                    bytes[size++] = HEX[c & 0xF];
+                }
+            }
+
+            return;
+        }
+
+        if (c < 0x800) {
+            bytes[size++] = (byte) (0xC0 | (c >> 6));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            return;
+        }
+
+        if (Character.isSurrogate(c)) {
+            // Characters outside the basic plane are escaped as their two surrogates, as the object mapper does
+            bytes[size++] = '\\';
+            bytes[size++] = 'u';
+            bytes[size++] = HEX[c >> 12];
+            bytes[size++] = HEX[(c >> 8) & 0xF];
+            bytes[size++] = HEX[(c >> 4) & 0xF];
+            bytes[size++] = HEX[c & 0xF];
+            return;
+        }
+
+        bytes[size++] = (byte) (0xE0 | (c >> 12));
+        bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[size++] = (byte) (0x80 | (c & 0x3F));
+    }
+
+    private JsonBuffer ascii(final byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, size, value.length);
+        size += value.length;
+        return this;
+    }
+
+    private JsonBuffer asciiString(final String value) {
+        int length = value.length();
+        ensureCapacity(length);
+
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) value.charAt(i);
+        }
+
+        return this;
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+}
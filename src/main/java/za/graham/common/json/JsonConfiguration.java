@@ -0,0 +1,19 @@
+package za.graham.common.json;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Puts the hand-written JSON converter ahead of the default Jackson converter.
+ */
+@Configuration
+public class JsonConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(final List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new FastJsonHttpMessageConverter());
+    }
+}
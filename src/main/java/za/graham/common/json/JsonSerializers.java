@@ -0,0 +1,128 @@
+package za.graham.common.json;
+
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.model.LoanQueryResult;
+import za.graham.Payment.model.Payment;
+import za.graham.common.api.ApiError;
+
+import java.util.List;
+
+/**
+ * Hand-written serializers for the API's hot response types: loans, loan multi-gets, payments and errors.
+ * <p>
+ * Each writes exactly what the object mapper would for the same object: the same properties in the same order,
+ * nulls included, and {Loan.version} left out. Any change to the JSON shape of these types must be made here as
+ * well; {JsonSerializersTest} compares the output byte for byte against the object mapper.
+ */
+public final class JsonSerializers {
+
+    private JsonSerializers() {
+    }
+
+    /**
+     * Serializes a {Loan}, {LoanQueryResult}, {Payment} or {ApiError} to UTF-8 JSON bytes.
+     *
+     * @throws IllegalArgumentException if the value is not one of the supported types
+     */
+    public static byte[] toJson(final Object value) {
+        return write(JsonBuffer.acquire(), value).toByteArray();
+    }
+
+    /**
+     * Whether {type} has a hand-written serializer. Only the exact classes are supported, so subclasses such as
+     * persistence proxies fall back to the object mapper.
+     */
+    public static boolean supports(final Class<?> type) {
+        return type == Loan.class || type == LoanQueryResult.class || type == Payment.class || type == ApiError.class;
+    }
+
+    static JsonBuffer write(final JsonBuffer out, final Object value) {
+        switch (value) {
+            case Loan loan -> writeLoan(out, loan);
+            case LoanQueryResult result -> writeLoanQueryResult(out, result);
+            case Payment payment -> writePayment(out, payment);
+            case ApiError apiError -> writeApiError(out, apiError);
+            default -> throw new IllegalArgumentException("No serializer for " + value.getClass().getName());
+        }
+
+        return out;
+    }
+
+    static void writeLoan(final JsonBuffer out, final Loan loan) {
+        if (loan == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.raw('{');
+        out.name("loanId", true).value(loan.getLoanId());
+        out.name("loanAmount", false).value(loan.getLoanAmount());
+        out.name("term", false).value(loan.getTerm());
+        out.name("status", false).value(loan.getStatus());
+        out.name("createdDate", false).value(loan.getCreatedDate());
+        out.raw('}');
+    }
+
+    static void writeLoanQueryResult(final JsonBuffer out, final LoanQueryResult result) {
+        out.raw('{');
+        out.name("loans", true);
+
+        if (result.loans() == null) {
+            out.nullValue();
+        } else {
+            out.raw('[');
+
+            for (int i = 0; i < result.loans().size(); i++) {
+                if (i > 0) {
+                    out.raw(',');
+                }
+
+                writeLoan(out, result.loans().get(i));
+            }
+
+            out.raw(']');
+        }
+
+        out.name("missingLoanIds", false);
+        writeStrings(out, result.missingLoanIds());
+        out.raw('}');
+    }
+
+    static void writePayment(final JsonBuffer out, final Payment payment) {
+        out.raw('{');
+        out.name("paymentId", true).value(payment.getPaymentId());
+        out.name("loan", false);
+        writeLoan(out, payment.getLoan());
+        out.name("paymentAmount", false).value(payment.getPaymentAmount());
+        out.name("paymentDate", false).value(payment.getPaymentDate());
+        out.name("settlesLoan", false).value(payment.isSettlesLoan());
+        out.raw('}');
+    }
+
+    static void writeApiError(final JsonBuffer out, final ApiError apiError) {
+        out.raw('{');
+        out.name("error", true).value(apiError.getError());
+        out.name("message", false).value(apiError.getMessage());
+        out.name("timestamp", false).value(apiError.getTimestamp());
+        out.raw('}');
+    }
+
+    private static void writeStrings(final JsonBuffer out, final List<String> values) {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.raw('[');
+
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.raw(',');
+            }
+
+            out.value(values.get(i));
+        }
+
+        out.raw(']');
+    }
+}
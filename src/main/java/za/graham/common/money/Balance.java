@@ -0,0 +1,37 @@
+package za.graham.common.money;
+
+import java.math.BigDecimal;
+
+/**
+ * Exact balance arithmetic for amounts held as doubles.
+ * Each amount is taken at its shortest decimal form, e.g. {333.33} rather than the nearest binary fraction, so a sum
+ * of payments carries none of the rounding error of adding doubles. A payment of exactly the remaining balance
+ * settles the loan, and no amount has to be rounded or rejected for its precision.
+ */
+public final class Balance {
+
+    private Balance() {
+    }
+
+    /**
+     * Returns {amount} as the exact decimal it was written as.
+     */
+    public static BigDecimal exact(final double amount) {
+        return BigDecimal.valueOf(amount);
+    }
+
+    /**
+     * Returns what is still owed on {loanAmount} once {paymentAmounts} have been paid.
+     */
+    public static BigDecimal outstanding(final double loanAmount, final Iterable<Double> paymentAmounts) {
+        BigDecimal outstanding = exact(loanAmount);
+
+        for (Double paymentAmount : paymentAmounts) {
+            if (paymentAmount != null) {
+                outstanding = outstanding.subtract(exact(paymentAmount));
+            }
+        }
+
+        return outstanding;
+    }
+}
@@ -0,0 +1,32 @@
+package za.graham.common.money;
+
+/**
+ * Conversions between rand amounts, held as doubles, and whole cents, for amounts that are rounded to the cent such
+ * as installments and statement balances.
+ */
+public final class Cents {
+
+    private Cents() {
+    }
+
+    /**
+     * Converts an amount to the nearest whole number of cents.
+     */
+    public static long toCents(final double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Converts whole cents back to an amount.
+     */
+    public static double toAmount(final long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Rounds an amount to the nearest cent.
+     */
+    public static double round(final double amount) {
+        return toAmount(toCents(amount));
+    }
+}
@@ -0,0 +1,12 @@
+package za.graham.common.scheduling;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled background jobs, such as archiving settled loans.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,172 @@
+package za.graham.common.timing;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding timers by deadline, measured in whole ticks.
+ * <p>
+ * Level 0 has one slot per tick; each level above it has slots spanning a full rotation of the level below, so
+ * {levels} levels of {2^bits} slots cover {2^(bits * levels)} ticks. Scheduling links the timer into one slot in
+ * constant time. As the clock reaches the start of a higher level slot, that slot is cascaded: its timers are
+ * re-linked into lower levels, so each timer moves at most {levels - 1} times before it fires, and advancing the
+ * clock costs a fixed number of slot checks per tick plus the timers that actually move or expire. Timers beyond
+ * the range of the top level wait in its last slot and are re-linked each time that slot comes round.
+ * <p>
+ * Slots are intrusive singly linked lists, so a timer costs one small node and no per-slot collections.
+ * The wheel is not thread-safe; it is meant to be owned by a single ticking thread.
+ *
+ * @param <T> the type of value carried by each timer
+ */
+public class TimingWheel<T> {
+
+    private final int bits;
+
+    private final int mask;
+
+    private final int levels;
+
+    private final Node<T>[][] slots;
+
+    private Node<T> expired;
+
+    private long currentTick;
+
+    private long size;
+
+    /**
+     * @param bits the number of bits of slot index per level, so each level has {2^bits} slots
+     * @param levels the number of levels
+     * @param startTick the tick the clock starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(final int bits, final int levels, final long startTick) {
+        if (bits < 1 || levels < 1 || bits * levels > 62) {
+            throw new IllegalArgumentException(String.format(
+                    "Timing wheel range must be between 1 and 62 bits {bits: %d, levels: %d}", bits, levels));
+        }
+
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.slots = new Node[levels][1 << bits];
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Schedules a timer. A deadline at or before the current tick fires on the next {advanceTo}.
+     *
+     * @param value the value to hand back when the timer fires
+     * @param deadlineTick the tick at which the timer is due
+     */
+    public void schedule(final T value, final long deadlineTick) {
+        place(new Node<>(value, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Advances the clock to {tick}, handing every timer that is due by then to {consumer}.
+     * Timers due on the same tick are handed over in no particular order.
+     *
+     * @param tick the tick to advance to; earlier ticks are ignored
+     * @param consumer receives the value of each due timer
+     */
+    public void advanceTo(final long tick, final Consumer<T> consumer) {
+        drainExpired(consumer);
+
+        while (currentTick < tick) {
+            currentTick++;
+
+            // Cascade from the highest level whose slot starts on this tick, so timers settle into the lowest level
+            for (int level = levels - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, slotIndex(currentTick, level));
+                }
+            }
+
+            int slot = slotIndex(currentTick, 0);
+            Node<T> node = slots[0][slot];
+            slots[0][slot] = null;
+
+            while (node != null) {
+                Node<T> next = node.next;
+                size--;
+                consumer.accept(node.value);
+                node = next;
+            }
+
+            drainExpired(consumer);
+        }
+    }
+
+    /** The tick the clock has advanced to. */
+    public long currentTick() {
+        return currentTick;
+    }
+
+    /** The number of timers that have not fired yet. */
+    public long size() {
+        return size;
+    }
+
+    private void cascade(final int level, final int slot) {
+        Node<T> node = slots[level][slot];
+        slots[level][slot] = null;
+
+        while (node != null) {
+            Node<T> next = node.next;
+            place(node);
+            node = next;
+        }
+    }
+
+    private void place(final Node<T> node) {
+        long delay = node.deadlineTick - currentTick;
+
+        if (delay <= 0) {
+            node.next = expired;
+            expired = node;
+            return;
+        }
+
+        int level = (63 - Long.numberOfLeadingZeros(delay)) / bits;
+        int slot;
+
+        if (level < levels) {
+            slot = slotIndex(node.deadlineTick, level);
+        } else {
+            // Out of range: park in the top level slot that comes round last, then re-place from there
+            level = levels - 1;
+            slot = (slotIndex(currentTick, level) - 1) & mask;
+        }
+
+        node.next = slots[level][slot];
+        slots[level][slot] = node;
+    }
+
+    private void drainExpired(final Consumer<T> consumer) {
+        while (expired != null) {
+            Node<T> node = expired;
+            expired = node.next;
+            size--;
+            consumer.accept(node.value);
+        }
+    }
+
+    private int slotIndex(final long tick, final int level) {
+        return (int) (tick >>> (bits * level)) & mask;
+    }
+
+    private static final class Node<T> {
+
+        private final T value;
+
+        private final long deadlineTick;
+
+        private Node<T> next;
+
+        private Node(final T value, final long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
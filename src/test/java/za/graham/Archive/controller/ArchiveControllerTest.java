@@ -0,0 +1,59 @@
+package za.graham.Archive.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import za.graham.Archive.exception.ArchiveRunningException;
+import za.graham.Archive.model.ArchiveRun;
+import za.graham.Archive.service.LoanArchiveService;
+import za.graham.common.exception.InvalidDataException;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ArchiveController.class)
+class ArchiveControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LoanArchiveService loanArchiveService;
+
+    @Test
+    void archiveSettledLoans() throws Exception {
+        when(loanArchiveService.archiveSettledLoans(90))
+                .thenReturn(new ArchiveRun(Instant.parse("2026-07-21T00:00:00Z"), 3, 1200, 9800, 450));
+
+        mockMvc.perform(post("/archive").param("settledDays", "90"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.settledBefore").value("2026-07-21T00:00:00Z"))
+                .andExpect(jsonPath("$.loansArchived").value(1200))
+                .andExpect(jsonPath("$.paymentsArchived").value(9800));
+    }
+
+    @Test
+    void archiveSettledLoans_whenInvalid() throws Exception {
+        when(loanArchiveService.archiveSettledLoans(-1))
+                .thenThrow(new InvalidDataException("settledDays cannot be negative"));
+
+        mockMvc.perform(post("/archive").param("settledDays", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("InvalidDataException"));
+    }
+
+    @Test
+    void archiveSettledLoans_whenAlreadyRunning() throws Exception {
+        when(loanArchiveService.archiveSettledLoans(30))
+                .thenThrow(new ArchiveRunningException("An archive run is already in progress"));
+
+        mockMvc.perform(post("/archive").param("settledDays", "30"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("ArchiveRunningException"));
+    }
+}
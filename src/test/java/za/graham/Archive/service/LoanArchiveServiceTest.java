@@ -0,0 +1,172 @@
+package za.graham.Archive.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import za.graham.Archive.model.ArchiveRun;
+import za.graham.Archive.model.ArchivedLoan;
+import za.graham.Archive.model.ArchivedPayment;
+import za.graham.Archive.repository.ArchivedLoanRepository;
+import za.graham.Archive.repository.ArchivedPaymentRepository;
+import za.graham.Loan.exception.LoanAlreadySettledException;
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.Loan.service.LoanCache;
+import za.graham.Loan.service.LoanIdFilter;
+import za.graham.Loan.service.LoanService;
+import za.graham.Payment.model.Payment;
+import za.graham.Payment.repository.PaymentRepository;
+import za.graham.Payment.service.PaymentService;
+import za.graham.common.exception.InvalidDataException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the archive against the database, since batches are moved with set-based statements.
+ * Transactions are left to the service, as in production, so the test sees exactly what was committed.
+ */
+@DataJpaTest(showSql = false)
+@Import({LoanArchiveService.class, LoanService.class, LoanCache.class, PaymentService.class, LoanIdFilter.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanArchiveServiceTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @Autowired
+    private LoanArchiveService loanArchiveService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private ArchivedPaymentRepository archivedPaymentRepository;
+
+    private Loan addLoan(String loanId, Loan.Status status) {
+        return loanRepository.save(Loan.builder()
+                .loanId(loanId)
+                .loanAmount(1000.0)
+                .term(12)
+                .status(status)
+                .createdDate(NOW.minus(Duration.ofDays(400)))
+                .build());
+    }
+
+    private void addPayment(Loan loan, String paymentId, double amount, int daysAgo, boolean settlesLoan) {
+        paymentRepository.save(Payment.builder()
+                .paymentId(paymentId)
+                .loan(loan)
+                .paymentAmount(amount)
+                .paymentDate(NOW.minus(Duration.ofDays(daysAgo)))
+                .settlesLoan(settlesLoan)
+                .build());
+    }
+
+    /** Settles a loan with two payments, the settling one {settledDaysAgo} days ago. */
+    private void addSettledLoan(String loanId, int settledDaysAgo) {
+        Loan loan = addLoan(loanId, Loan.Status.SETTLED);
+        addPayment(loan, loanId + "_P1", 400.0, settledDaysAgo + 30, false);
+        addPayment(loan, loanId + "_P2", 600.0, settledDaysAgo, true);
+    }
+
+    @BeforeEach
+    void setUp() {
+        loanArchiveService.batchSize = 2;
+
+        addSettledLoan("LOAN_OLD_1", 200);
+        addSettledLoan("LOAN_OLD_2", 120);
+        addSettledLoan("LOAN_OLD_3", 91);
+        addSettledLoan("LOAN_RECENT", 10);
+
+        Loan active = addLoan("LOAN_ACTIVE", Loan.Status.ACTIVE);
+        addPayment(active, "LOAN_ACTIVE_P1", 100.0, 300, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentRepository.deleteAll();
+        loanRepository.deleteAll();
+        archivedPaymentRepository.deleteAll();
+        archivedLoanRepository.deleteAll();
+    }
+
+    @Test
+    void archiveSettledLoans_movesOldSettledLoansAndPayments_inBatches() {
+        ArchiveRun run = loanArchiveService.archiveSettledLoans(90);
+
+        assertEquals(3, run.loansArchived());
+        assertEquals(6, run.paymentsArchived());
+        assertEquals(2, run.batches());
+
+        assertEquals(List.of("LOAN_ACTIVE", "LOAN_RECENT"),
+                loanRepository.findAll().stream().map(Loan::getLoanId).sorted().toList());
+        assertEquals(List.of("LOAN_ACTIVE_P1", "LOAN_RECENT_P1", "LOAN_RECENT_P2"),
+                paymentRepository.findAll().stream().map(Payment::getPaymentId).sorted().toList());
+
+        ArchivedLoan archived = archivedLoanRepository.findById("LOAN_OLD_2").orElseThrow();
+        assertEquals(Loan.Status.SETTLED, archived.getStatus());
+        assertEquals(1000.0, archived.getLoanAmount());
+        assertEquals(NOW.minus(Duration.ofDays(120)), archived.getSettledDate());
+        assertNotNull(archived.getArchivedDate());
+
+        List<ArchivedPayment> payments = archivedPaymentRepository.findAll().stream()
+                .filter(payment -> payment.getLoanId().equals("LOAN_OLD_2"))
+                .sorted(Comparator.comparing(ArchivedPayment::getPaymentDate))
+                .toList();
+        assertEquals(List.of(400.0, 600.0), payments.stream().map(ArchivedPayment::getPaymentAmount).toList());
+        assertTrue(payments.get(1).isSettlesLoan());
+    }
+
+    /** Archived loans read exactly as before, and are still rejected for payment as settled. */
+    @Test
+    void archivedLoans_remainReadable() {
+        Loan before = loanService.getLoan("LOAN_OLD_1");
+
+        loanArchiveService.archiveSettledLoans(90);
+
+        Loan after = loanService.getLoan("LOAN_OLD_1");
+        assertEquals(before.getLoanAmount(), after.getLoanAmount());
+        assertEquals(before.getCreatedDate(), after.getCreatedDate());
+        assertEquals(before.getVersion(), after.getVersion());
+        assertEquals(Loan.Status.SETTLED, after.getStatus());
+        assertThrows(LoanAlreadySettledException.class, () -> paymentService.processLoanPayment("LOAN_OLD_1", 10.0));
+        assertFalse(paymentRepository.existsById("LOAN_OLD_1_P1"));
+    }
+
+    @Test
+    void archiveSettledLoans_whenNothingToArchive() {
+        ArchiveRun run = loanArchiveService.archiveSettledLoans(365);
+
+        assertEquals(0, run.loansArchived());
+        assertEquals(0, run.batches());
+        assertEquals(5, loanRepository.count());
+    }
+
+    @Test
+    void archiveSettledLoans_whenSettledDaysNegative() {
+        assertThrows(InvalidDataException.class, () -> loanArchiveService.archiveSettledLoans(-1));
+    }
+}
@@ -0,0 +1,72 @@
+package za.graham.FlightRecorder.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import za.graham.FlightRecorder.exception.RecordingAlreadyRunningException;
+import za.graham.FlightRecorder.exception.RecordingNotFoundException;
+import za.graham.FlightRecorder.model.RecordingInfo;
+import za.graham.FlightRecorder.service.FlightRecorderService;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(FlightRecorderController.class)
+class FlightRecorderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private FlightRecorderService flightRecorderService;
+
+    @Test
+    void startRecording() throws Exception {
+        when(flightRecorderService.startRecording("p99", 10, 50))
+                .thenReturn(new RecordingInfo("p99", 3, "RUNNING", Instant.now(), 600, 50L * 1024 * 1024, null));
+
+        mockMvc.perform(post("/flight-recordings/start")
+                        .param("name", "p99")
+                        .param("maxAgeMinutes", "10")
+                        .param("maxSizeMb", "50"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("p99"))
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+    }
+
+    @Test
+    void startRecording_whenAlreadyRunning() throws Exception {
+        when(flightRecorderService.startRecording(eq("payments"), anyLong(), anyLong()))
+                .thenThrow(new RecordingAlreadyRunningException("Recording already running {name: payments}"));
+
+        mockMvc.perform(post("/flight-recordings/start"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("RecordingAlreadyRunningException"));
+    }
+
+    @Test
+    void stopRecording() throws Exception {
+        when(flightRecorderService.stopRecording("payments"))
+                .thenReturn(new RecordingInfo("payments", 3, "STOPPED", Instant.now(), 1800, 0,
+                        "/app/recordings/payments-20260203-091502.jfr"));
+
+        mockMvc.perform(post("/flight-recordings/stop"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dumpFile").value("/app/recordings/payments-20260203-091502.jfr"));
+    }
+
+    @Test
+    void dumpRecording_whenNotRunning() throws Exception {
+        when(flightRecorderService.dumpRecording("missing"))
+                .thenThrow(new RecordingNotFoundException("Recording not found {name: missing}"));
+
+        mockMvc.perform(post("/flight-recordings/dump").param("name", "missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("RecordingNotFoundException"));
+    }
+}
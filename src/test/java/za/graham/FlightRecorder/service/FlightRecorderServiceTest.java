@@ -0,0 +1,125 @@
+package za.graham.FlightRecorder.service;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import za.graham.FlightRecorder.exception.RecordingAlreadyRunningException;
+import za.graham.FlightRecorder.exception.RecordingNotFoundException;
+import za.graham.FlightRecorder.model.RecordingInfo;
+import za.graham.common.exception.InvalidDataException;
+import za.graham.common.flightrecorder.FlightRecorderEvents;
+import za.graham.common.flightrecorder.PaymentRequestEvent;
+import za.graham.common.generator.UniqueIdGenerator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private FlightRecorderService flightRecorderService;
+
+    @BeforeEach
+    void setUp() {
+        flightRecorderService = new FlightRecorderService();
+        flightRecorderService.directory = directory.toString();
+    }
+
+    @AfterEach
+    void tearDown() {
+        flightRecorderService.closeRecordings();
+    }
+
+    private static void emitPaymentRequest(String loanId) {
+        PaymentRequestEvent event = new PaymentRequestEvent();
+        event.begin();
+        event.loanId = loanId;
+        event.paymentAmount = 250.0;
+        event.queueWait = 1_000;
+        event.outcome = FlightRecorderEvents.SUCCESS;
+        event.commit();
+    }
+
+    /** The payment profile enables the custom events, and a dump leaves the recording running. */
+    @Test
+    void dumpRecording_containsPaymentEvents() throws Exception {
+        flightRecorderService.startRecording("test", 5, 0);
+
+        emitPaymentRequest("LOAN_001");
+        UniqueIdGenerator.generateUniqueId("LOAN");
+
+        RecordingInfo dumped = flightRecorderService.dumpRecording("test");
+        List<RecordedEvent> events = RecordingFile.readAllEvents(Path.of(dumped.dumpFile()));
+        RecordedEvent payment = events.stream()
+                .filter(event -> event.getEventType().getName().equals("za.graham.PaymentRequest"))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals("RUNNING", dumped.state());
+        assertEquals(300, dumped.maxAgeSeconds());
+        assertEquals("LOAN_001", payment.getString("loanId"));
+        assertEquals(250.0, payment.getDouble("paymentAmount"));
+        assertEquals(Duration.ofNanos(1_000), payment.getDuration("queueWait"));
+        assertEquals(FlightRecorderEvents.SUCCESS, payment.getString("outcome"));
+        assertEquals(1, flightRecorderService.getRecordings().size());
+    }
+
+    @Test
+    void stopRecording_writesFileAndReleasesRecording() {
+        flightRecorderService.startRecording("test", 0, 0);
+
+        RecordingInfo stopped = flightRecorderService.stopRecording("test");
+
+        assertEquals("STOPPED", stopped.state());
+        assertTrue(Files.exists(Path.of(stopped.dumpFile())));
+        assertTrue(stopped.dumpFile().startsWith(directory.toString()));
+        assertTrue(flightRecorderService.getRecordings().isEmpty());
+        assertThrows(RecordingNotFoundException.class, () -> flightRecorderService.stopRecording("test"));
+    }
+
+    @Test
+    void startRecording_throwsRecordingAlreadyRunningException_whenNameInUse() {
+        flightRecorderService.startRecording("test", 0, 0);
+
+        assertThrows(RecordingAlreadyRunningException.class,
+                () -> flightRecorderService.startRecording("test", 0, 0));
+        assertEquals(1, flightRecorderService.getRecordings().size());
+    }
+
+    @Test
+    void startRecording_throwsInvalidDataException_whenNameInvalid() {
+        assertThrows(InvalidDataException.class,
+                () -> flightRecorderService.startRecording("../test", 0, 0));
+    }
+
+    /** Sizes of 2 GB and more are converted without overflowing. */
+    @Test
+    void startRecording_convertsLargeSizeLimit() {
+        RecordingInfo recording = flightRecorderService.startRecording("test", 0, 4096);
+
+        assertEquals(4096L * 1024 * 1024, recording.maxSizeBytes());
+    }
+
+    @Test
+    void startRecording_throwsInvalidDataException_whenLimitsOutOfRange() {
+        assertThrows(InvalidDataException.class, () -> flightRecorderService.startRecording("test", -1, 0));
+        assertThrows(InvalidDataException.class, () -> flightRecorderService.startRecording("test", 0, -1));
+        assertThrows(InvalidDataException.class, () -> flightRecorderService.startRecording("test", 0, Long.MAX_VALUE));
+        assertThrows(InvalidDataException.class, () -> flightRecorderService.startRecording("test", Long.MAX_VALUE, 0));
+        assertTrue(flightRecorderService.getRecordings().isEmpty());
+    }
+
+    @Test
+    void dumpRecording_throwsRecordingNotFoundException_whenNotRunning() {
+        assertThrows(RecordingNotFoundException.class, () -> flightRecorderService.dumpRecording("missing"));
+    }
+}
@@ -0,0 +1,58 @@
+package za.graham.Installment.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import za.graham.Installment.model.InstallmentSchedule;
+import za.graham.Installment.service.InstallmentService;
+import za.graham.Loan.exception.LoanNotFoundException;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(InstallmentController.class)
+class InstallmentControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private InstallmentService installmentService;
+
+    @Test
+    void getSchedule() throws Exception {
+        when(installmentService.getSchedule("LOAN_001")).thenReturn(InstallmentSchedule.builder()
+                .loanId("LOAN_001")
+                .loanAmount(1000.0)
+                .term(12)
+                .installmentAmount(83.33)
+                .createdDate(Instant.parse("2026-01-15T10:00:00Z"))
+                .installmentsCollected(2)
+                .nextDueDate(Instant.parse("2026-04-15T10:00:00Z"))
+                .status(InstallmentSchedule.Status.ACTIVE)
+                .lastOutcome("SUCCESS")
+                .build());
+
+        mockMvc.perform(get("/installments").param("loanId", "LOAN_001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.installmentAmount").value(83.33))
+                .andExpect(jsonPath("$.installmentsCollected").value(2))
+                .andExpect(jsonPath("$.nextDueDate").value("2026-04-15T10:00:00Z"))
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+    }
+
+    @Test
+    void getSchedule_whenNotFound() throws Exception {
+        when(installmentService.getSchedule("LOAN_404"))
+                .thenThrow(new LoanNotFoundException("Installment schedule not found {loanId: LOAN_404}"));
+
+        mockMvc.perform(get("/installments").param("loanId", "LOAN_404"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("LoanNotFoundException"));
+    }
+}
@@ -0,0 +1,318 @@
+package za.graham.Installment.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import za.graham.Installment.event.InstallmentCollectedEvent;
+import za.graham.Installment.model.InstallmentSchedule;
+import za.graham.Installment.repository.InstallmentScheduleRepository;
+import za.graham.Loan.exception.LoanNotFoundException;
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.Loan.service.LoanCache;
+import za.graham.Loan.service.LoanIdFilter;
+import za.graham.Loan.service.LoanService;
+import za.graham.Payment.model.Payment;
+import za.graham.Payment.repository.PaymentRepository;
+import za.graham.Payment.service.PaymentService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the installment engine against the database and the real {PaymentService}. The ticker thread is left
+ * stopped, so each test moves the clock and advances the timing wheel itself.
+ */
+@DataJpaTest(showSql = false)
+@Import({InstallmentService.class, LoanService.class, LoanCache.class, PaymentService.class, LoanIdFilter.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "installments.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+class InstallmentServiceTest {
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private InstallmentService installmentService;
+
+    @Autowired
+    private InstallmentScheduleRepository installmentScheduleRepository;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @BeforeEach
+    void setUp() {
+        installmentService.enabled = true;
+        installmentService.loadActiveSchedules(System.currentTimeMillis());
+    }
+
+    @AfterEach
+    void tearDown() {
+        installmentScheduleRepository.deleteAll();
+        paymentRepository.deleteAll();
+        loanRepository.deleteAll();
+    }
+
+    /** Moves the clock to {time} and advances the wheel to it, returning the loans that fell due. */
+    private List<String> advanceTo(Instant time) {
+        installmentService.clock = Clock.fixed(time, ZoneOffset.UTC);
+        return installmentService.advance(time.toEpochMilli());
+    }
+
+    /** Advances to the loan's next due date and collects whatever fell due. */
+    private int collectNext(String loanId) {
+        Instant dueDate = installmentService.getSchedule(loanId).getNextDueDate();
+        List<String> due = advanceTo(dueDate.plusSeconds(1));
+
+        assertTrue(due.contains(loanId), () -> loanId + " fell due");
+        return installmentService.collectBatch(due);
+    }
+
+    private List<Double> payments(String loanId) {
+        return paymentRepository.findAll().stream()
+                .filter(payment -> payment.getLoan().getLoanId().equals(loanId))
+                .sorted(Comparator.comparing(Payment::getPaymentId))
+                .map(Payment::getPaymentAmount)
+                .toList();
+    }
+
+    @Test
+    void onLoanCreated_persistsScheduleAndRegistersFirstDueDate() {
+        Loan loan = loanService.createLoan(1000.0, 12);
+
+        InstallmentSchedule schedule = installmentService.getSchedule(loan.getLoanId());
+
+        assertEquals(InstallmentSchedule.Status.ACTIVE, schedule.getStatus());
+        assertEquals(83.33, schedule.getInstallmentAmount());
+        assertEquals(0, schedule.getInstallmentsCollected());
+        assertEquals(schedule.dueDate(1), schedule.getNextDueDate());
+        assertEquals(loan.getCreatedDate().atZone(ZoneOffset.UTC).plusMonths(1).toInstant().getEpochSecond(),
+                schedule.getNextDueDate().getEpochSecond());
+
+        assertEquals(List.of(), advanceTo(schedule.getNextDueDate().minusSeconds(1)));
+        assertEquals(List.of(loan.getLoanId()), advanceTo(schedule.getNextDueDate().plusSeconds(1)));
+    }
+
+    /** The last installment collects the remaining balance, so rounding never leaves the loan open. */
+    @Test
+    void collectBatch_collectsEveryInstallment_andSettlesLoanOnLast() {
+        Loan loan = loanService.createLoan(1000.0, 3);
+
+        for (int installment = 1; installment <= 3; installment++) {
+            assertEquals(1, collectNext(loan.getLoanId()));
+        }
+
+        InstallmentSchedule schedule = installmentService.getSchedule(loan.getLoanId());
+
+        assertEquals(List.of(333.33, 333.33, 333.34), payments(loan.getLoanId()));
+        assertEquals(List.of(1, 2, 3), events.stream(InstallmentCollectedEvent.class)
+                .filter(event -> event.loanId().equals(loan.getLoanId()))
+                .map(InstallmentCollectedEvent::installment)
+                .toList());
+        assertEquals(Loan.Status.SETTLED, loanRepository.findById(loan.getLoanId()).orElseThrow().getStatus());
+        assertEquals(InstallmentSchedule.Status.COMPLETED, schedule.getStatus());
+        assertEquals(3, schedule.getInstallmentsCollected());
+        assertEquals(InstallmentService.SUCCESS, schedule.getLastOutcome());
+        assertEquals(List.of(), advanceTo(schedule.getNextDueDate().plusSeconds(1)));
+    }
+
+    @Test
+    void collectBatch_capsInstallmentAtOutstandingBalance() {
+        Loan loan = loanService.createLoan(100.0, 2);
+        paymentService.processLoanPayment(loan.getLoanId(), 80.0);
+
+        assertEquals(1, collectNext(loan.getLoanId()));
+
+        assertEquals(List.of(80.0, 20.0), payments(loan.getLoanId()));
+        assertEquals(InstallmentSchedule.Status.COMPLETED, installmentService.getSchedule(loan.getLoanId()).getStatus());
+    }
+
+    /** Installments are rounded to the cent, but the final one still settles a balance a manual payment left uneven. */
+    @Test
+    void collectBatch_settlesLoan_whenBalanceHasFractionOfCent() {
+        Loan loan = loanService.createLoan(100.0, 2);
+        paymentService.processLoanPayment(loan.getLoanId(), 0.005);
+
+        assertEquals(1, collectNext(loan.getLoanId()));
+        assertEquals(1, collectNext(loan.getLoanId()));
+
+        assertEquals(List.of(0.005, 50.0, 49.995), payments(loan.getLoanId()));
+        assertEquals(Loan.Status.SETTLED, loanRepository.findById(loan.getLoanId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void collectBatch_completesSchedule_whenLoanPaidOffBeforeDueDate() {
+        Loan loan = loanService.createLoan(100.0, 2);
+        paymentService.processLoanPayment(loan.getLoanId(), 100.0);
+
+        assertEquals(0, collectNext(loan.getLoanId()));
+
+        InstallmentSchedule schedule = installmentService.getSchedule(loan.getLoanId());
+        assertEquals(InstallmentSchedule.Status.COMPLETED, schedule.getStatus());
+        assertEquals(InstallmentService.SETTLED, schedule.getLastOutcome());
+        assertEquals(List.of(100.0), payments(loan.getLoanId()));
+    }
+
+    @Test
+    void collectBatch_skipsLoan_whenInstallmentNotYetDue() {
+        Loan loan = loanService.createLoan(100.0, 2);
+        installmentService.clock = Clock.systemUTC();
+
+        assertEquals(0, installmentService.collectBatch(List.of(loan.getLoanId())));
+        assertEquals(List.of(), payments(loan.getLoanId()));
+        assertEquals(0, installmentService.getSchedule(loan.getLoanId()).getInstallmentsCollected());
+    }
+
+    @Test
+    void collectBatch_cancelsSchedule_whenLoanNoLongerExists() {
+        InstallmentSchedule schedule = InstallmentSchedule.builder()
+                .loanId("LOAN_MISSING")
+                .loanAmount(100.0)
+                .term(2)
+                .installmentAmount(50.0)
+                .createdDate(Instant.parse("2026-01-15T10:00:00Z"))
+                .nextDueDate(Instant.parse("2026-02-15T10:00:00Z"))
+                .status(InstallmentSchedule.Status.ACTIVE)
+                .build();
+        installmentScheduleRepository.save(schedule);
+        installmentService.clock = Clock.fixed(Instant.parse("2026-02-16T00:00:00Z"), ZoneOffset.UTC);
+
+        assertEquals(0, installmentService.collectBatch(List.of("LOAN_MISSING")));
+
+        schedule = installmentService.getSchedule("LOAN_MISSING");
+        assertEquals(InstallmentSchedule.Status.CANCELLED, schedule.getStatus());
+        assertEquals("LoanNotFoundException", schedule.getLastOutcome());
+    }
+
+    /** An installment that would round to nothing is collected a cent at a time instead. */
+    @Test
+    void onLoanCreated_setsOneCentFloor_onInstallmentAmount() {
+        Loan loan = loanService.createLoan(0.05, 12);
+
+        assertEquals(0.01, installmentService.getSchedule(loan.getLoanId()).getInstallmentAmount());
+        assertEquals(1, collectNext(loan.getLoanId()));
+        assertEquals(List.of(0.01), payments(loan.getLoanId()));
+    }
+
+    /** An installment the payment service rejects as invalid is not retried forever. */
+    @Test
+    void collectBatch_cancelsSchedule_whenInstallmentIsInvalid() {
+        Loan loan = loanService.createLoan(100.0, 2);
+        InstallmentSchedule schedule = installmentService.getSchedule(loan.getLoanId());
+        schedule.setInstallmentAmount(0.0);
+        installmentScheduleRepository.save(schedule);
+
+        assertEquals(0, collectNext(loan.getLoanId()));
+
+        schedule = installmentService.getSchedule(loan.getLoanId());
+        assertEquals(InstallmentSchedule.Status.CANCELLED, schedule.getStatus());
+        assertEquals("InvalidDataException", schedule.getLastOutcome());
+        assertEquals(List.of(), advanceTo(schedule.getNextDueDate().plusSeconds(1)));
+    }
+
+    /** After a restart the wheel is rebuilt from the active schedules alone. */
+    @Test
+    void loadActiveSchedules_reloadsActiveSchedules() {
+        Loan active = loanService.createLoan(100.0, 2);
+        Loan paidOff = loanService.createLoan(100.0, 2);
+        paymentService.processLoanPayment(paidOff.getLoanId(), 100.0);
+        collectNext(paidOff.getLoanId());
+
+        installmentService.loadActiveSchedules(System.currentTimeMillis());
+
+        Instant dueDate = installmentService.getSchedule(active.getLoanId()).getNextDueDate();
+        assertEquals(List.of(active.getLoanId()), advanceTo(dueDate.plusSeconds(1)).stream().distinct().toList());
+    }
+
+    /**
+     * A schedule that cannot be saved does not fail loan creation, which has already committed the loan;
+     * the schedule is created on the next startup instead.
+     */
+    @Test
+    void onLoanCreated_keepsLoan_andCreatesScheduleOnNextStartup_whenSaveFails() {
+        InstallmentScheduleRepository repository = installmentService.installmentScheduleRepository;
+        InstallmentScheduleRepository failing = mock(InstallmentScheduleRepository.class);
+        when(failing.save(any())).thenThrow(new IllegalStateException("database unavailable"));
+        installmentService.installmentScheduleRepository = failing;
+        Loan loan;
+
+        try {
+            loan = loanService.createLoan(100.0, 2);
+        } finally {
+            installmentService.installmentScheduleRepository = repository;
+        }
+
+        assertTrue(loanRepository.existsById(loan.getLoanId()));
+        assertThrows(LoanNotFoundException.class, () -> installmentService.getSchedule(loan.getLoanId()));
+
+        installmentService.loadActiveSchedules(System.currentTimeMillis());
+
+        InstallmentSchedule schedule = installmentService.getSchedule(loan.getLoanId());
+        assertEquals(InstallmentSchedule.Status.ACTIVE, schedule.getStatus());
+        assertEquals(50.0, schedule.getInstallmentAmount());
+        assertTrue(advanceTo(schedule.getNextDueDate().plusSeconds(1)).contains(loan.getLoanId()));
+    }
+
+    /** A ticker whose startup load fails keeps running and still collects loans registered afterwards. */
+    @Test
+    void start_collectsNewRegistrations_whenStartupLoadFails() throws Exception {
+        InstallmentScheduleRepository repository = installmentService.installmentScheduleRepository;
+        InstallmentScheduleRepository failing = mock(InstallmentScheduleRepository.class, delegatesTo(repository));
+        doThrow(new IllegalStateException("database unavailable")).when(failing).findActiveLoansWithoutSchedule(any(), any());
+        doThrow(new IllegalStateException("database unavailable")).when(failing).findActiveAfter(any(), any());
+        Duration tick = installmentService.tick;
+        installmentService.installmentScheduleRepository = failing;
+        installmentService.tick = Duration.ofMillis(20);
+        installmentService.clock = Clock.fixed(Instant.now().plus(Duration.ofDays(40)), ZoneOffset.UTC);
+
+        try {
+            installmentService.start();
+            Loan loan = loanService.createLoan(100.0, 2);
+
+            for (int attempt = 0; attempt < 250 && payments(loan.getLoanId()).isEmpty(); attempt++) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(List.of(50.0), payments(loan.getLoanId()));
+        } finally {
+            installmentService.stop();
+            installmentService.init();
+            installmentService.installmentScheduleRepository = repository;
+            installmentService.tick = tick;
+        }
+    }
+
+    @Test
+    void getSchedule_throwsLoanNotFoundException_whenNoSchedule() {
+        assertThrows(LoanNotFoundException.class, () -> installmentService.getSchedule("LOAN_UNKNOWN"));
+    }
+}
@@ -3,15 +3,22 @@ package za.graham.Loan.controller;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import za.graham.Loan.exception.LoanNotFoundException;
 import za.graham.Loan.model.Loan;
+import za.graham.Loan.model.LoanQueryResult;
+import za.graham.Loan.model.LoanSearchCriteria;
+import za.graham.Loan.model.LoanSearchPage;
 import za.graham.Loan.service.LoanService;
+import za.graham.common.audit.AuditEvent;
+import za.graham.common.audit.AuditLog;
 import za.graham.common.exception.InvalidDataException;
 
 import java.time.Instant;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -26,6 +33,9 @@ class LoanControllerTest {
     @MockitoBean
     private LoanService loanService;
 
+    @MockitoBean
+    private AuditLog auditLog;
+
     @Test
     void getLoan_whenLoanExists() throws Exception {
         Loan loan = Loan.builder()
@@ -34,15 +44,58 @@ class LoanControllerTest {
                 .term(12)
                 .status(Loan.Status.ACTIVE)
                 .createdDate(Instant.now())
+                .version(3L)
                 .build();
 
         when(loanService.getLoan("LOAN_001")).thenReturn(loan);
 
         mockMvc.perform(get("/loans").param("loanId", "LOAN_001"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"LOAN_001-3\""))
                 .andExpect(jsonPath("$.loanId").value("LOAN_001"))
                 .andExpect(jsonPath("$.loanAmount").value(5000.0))
-                .andExpect(jsonPath("$.status").value("ACTIVE"));
+                .andExpect(jsonPath("$.status").value("ACTIVE"))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    /** A current ETag is answered from the cached version without loading the loan. */
+    @Test
+    void getLoan_whenETagMatchesCachedVersion() throws Exception {
+        when(loanService.getCachedLoanVersion("LOAN_001")).thenReturn(3L);
+
+        mockMvc.perform(get("/loans").param("loanId", "LOAN_001").header("If-None-Match", "\"LOAN_001-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"LOAN_001-3\""))
+                .andExpect(content().string(""));
+
+        verify(loanService, never()).getLoan(any());
+    }
+
+    /** When the loan is not cached the ETag is still checked after loading it. */
+    @Test
+    void getLoan_whenETagMatchesAndCacheCold() throws Exception {
+        Loan loan = Loan.builder().loanId("LOAN_001").loanAmount(5000.0).term(12).status(Loan.Status.ACTIVE).version(3L).build();
+
+        when(loanService.getCachedLoanVersion("LOAN_001")).thenReturn(null);
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+
+        mockMvc.perform(get("/loans").param("loanId", "LOAN_001").header("If-None-Match", "\"LOAN_001-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    /** A stale ETag gets the current loan and its new ETag. */
+    @Test
+    void getLoan_whenETagStale() throws Exception {
+        Loan loan = Loan.builder().loanId("LOAN_001").loanAmount(5000.0).term(12).status(Loan.Status.SETTLED).version(4L).build();
+
+        when(loanService.getCachedLoanVersion("LOAN_001")).thenReturn(4L);
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+
+        mockMvc.perform(get("/loans").param("loanId", "LOAN_001").header("If-None-Match", "\"LOAN_001-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"LOAN_001-4\""))
+                .andExpect(jsonPath("$.status").value("SETTLED"));
     }
 
     @Test
@@ -74,6 +127,9 @@ class LoanControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.loanId").value("LOAN_002"))
                 .andExpect(jsonPath("$.loanAmount").value(2000.0));
+
+        verify(auditLog).record(eq(AuditEvent.Action.LOAN_CREATED), eq("LOAN_002"), isNull(), eq(2000.0),
+                eq(201), eq(AuditEvent.SUCCESS), anyLong());
     }
 
     @Test
@@ -87,6 +143,9 @@ class LoanControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("InvalidDataException"))
                 .andExpect(jsonPath("$.message").value("Loan amount invalid"));
+
+        verify(auditLog).record(eq(AuditEvent.Action.LOAN_CREATED), isNull(), isNull(), anyDouble(),
+                eq(400), eq("InvalidDataException"), anyLong());
     }
 
     @Test
@@ -101,4 +160,70 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.error").value("InvalidDataException"))
                 .andExpect(jsonPath("$.message").value("Loan term invalid"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void queryLoans() throws Exception {
+        Loan loan = Loan.builder().loanId("LOAN_001").loanAmount(5000.0).term(12).status(Loan.Status.ACTIVE).build();
+
+        when(loanService.getLoans(List.of("LOAN_001", "LOAN_404")))
+                .thenReturn(new LoanQueryResult(List.of(loan), List.of("LOAN_404")));
+
+        mockMvc.perform(post("/loans/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"loanIds\":[\"LOAN_001\",\"LOAN_404\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loans[0].loanId").value("LOAN_001"))
+                .andExpect(jsonPath("$.loans.length()").value(1))
+                .andExpect(jsonPath("$.missingLoanIds[0]").value("LOAN_404"));
+    }
+
+    @Test
+    void queryLoans_withNoIds() throws Exception {
+        when(loanService.getLoans(List.of())).thenThrow(new InvalidDataException("At least one loanId is required"));
+
+        mockMvc.perform(post("/loans/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"loanIds\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("InvalidDataException"));
+    }
+
+    @Test
+    void searchLoans_withFilters() throws Exception {
+        Loan loan = Loan.builder()
+                .loanId("LOAN_003")
+                .loanAmount(3000.0)
+                .term(12)
+                .status(Loan.Status.ACTIVE)
+                .createdDate(Instant.parse("2026-02-01T10:00:00Z"))
+                .build();
+        LoanSearchCriteria criteria = new LoanSearchCriteria(Loan.Status.ACTIVE,
+                Instant.parse("2026-02-01T00:00:00Z"), null, 1000.0, null);
+
+        when(loanService.searchLoans(criteria, "loanAmount", Sort.Direction.DESC, 20, "abc"))
+                .thenReturn(new LoanSearchPage(List.of(loan), true, "def"));
+
+        mockMvc.perform(get("/loans/search")
+                        .param("status", "ACTIVE")
+                        .param("createdFrom", "2026-02-01T00:00:00Z")
+                        .param("minAmount", "1000")
+                        .param("sort", "loanAmount")
+                        .param("direction", "DESC")
+                        .param("limit", "20")
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loans[0].loanId").value("LOAN_003"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
+    @Test
+    void searchLoans_withInvalidSort() throws Exception {
+        when(loanService.searchLoans(any(), eq("term"), any(), anyInt(), isNull()))
+                .thenThrow(new InvalidDataException("Loans can only be sorted by [createdDate, loanAmount, loanId]"));
+
+        mockMvc.perform(get("/loans/search").param("sort", "term"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("InvalidDataException"));
+    }
+}
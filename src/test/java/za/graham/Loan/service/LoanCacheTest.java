@@ -0,0 +1,50 @@
+package za.graham.Loan.service;
+
+import org.junit.jupiter.api.Test;
+import za.graham.Loan.model.Loan;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanCacheTest {
+
+    private final LoanCache loanCache = new LoanCache();
+
+    private static Loan loan(String loanId, Loan.Status status, long version) {
+        return Loan.builder().loanId(loanId).loanAmount(1000.0).term(12).status(status).version(version).build();
+    }
+
+    /** Changes made to a loan after caching it, or to a loan read from the cache, never reach the cached snapshot. */
+    @Test
+    void get_returnsIndependentCopies() {
+        Loan loan = loan("LOAN_001", Loan.Status.ACTIVE, 1);
+        loanCache.put(loan);
+
+        loan.setStatus(Loan.Status.SETTLED);
+        loanCache.get("LOAN_001").setStatus(Loan.Status.SETTLED);
+
+        assertEquals(Loan.Status.ACTIVE, loanCache.get("LOAN_001").getStatus());
+    }
+
+    /** A snapshot read before a concurrent update must not overwrite the updated entry. */
+    @Test
+    void put_keepsNewestVersion() {
+        loanCache.put(loan("LOAN_001", Loan.Status.SETTLED, 2));
+        loanCache.put(loan("LOAN_001", Loan.Status.ACTIVE, 1));
+
+        assertEquals(2L, loanCache.getVersion("LOAN_001"));
+        assertEquals(Loan.Status.SETTLED, loanCache.get("LOAN_001").getStatus());
+    }
+
+    @Test
+    void put_evictsEntries_whenFull() {
+        loanCache.maxEntries = 8;
+
+        for (int i = 0; i < 20; i++) {
+            loanCache.put(loan("LOAN_" + i, Loan.Status.ACTIVE, 0));
+        }
+
+        assertTrue(loanCache.size() <= 8);
+        assertEquals(0L, loanCache.getVersion("LOAN_19"));
+        assertNull(loanCache.getVersion("LOAN_MISSING"));
+    }
+}
@@ -0,0 +1,124 @@
+package za.graham.Loan.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import za.graham.Archive.repository.ArchivedLoanRepository;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.common.generator.UniqueIdGenerator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanIdFilterTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @InjectMocks
+    private LoanIdFilter loanIdFilter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        loanIdFilter.meterRegistry = meterRegistry;
+        loanIdFilter.expectedLoans = 1000;
+        loanIdFilter.registerMetrics();
+    }
+
+    private void givenLoans(List<String> live, List<String> archived) {
+        when(loanRepository.count()).thenReturn((long) live.size());
+        when(archivedLoanRepository.count()).thenReturn((long) archived.size());
+        when(loanRepository.findLoanIdsAfter(eq(""), any(Limit.class))).thenReturn(live);
+        when(archivedLoanRepository.findLoanIdsAfter(eq(""), any(Limit.class))).thenReturn(archived);
+    }
+
+    /** Before the first build nothing is known, so every ID must be looked up. */
+    @Test
+    void mightContain_beforeFirstBuild() {
+        assertTrue(loanIdFilter.mightContain("LOAN_ANY"));
+    }
+
+    @Test
+    void rebuild_includesLiveAndArchivedLoans_andRejectsUnknownIds() {
+        givenLoans(List.of("LOAN_A", "LOAN_B"), List.of("LOAN_OLD"));
+
+        loanIdFilter.rebuild();
+        loanIdFilter.add("LOAN_NEW");
+
+        assertTrue(loanIdFilter.mightContain("LOAN_A"));
+        assertTrue(loanIdFilter.mightContain("LOAN_B"));
+        assertTrue(loanIdFilter.mightContain("LOAN_OLD"));
+        assertTrue(loanIdFilter.mightContain("LOAN_NEW"));
+        assertFalse(loanIdFilter.mightContain("LOAN_TYPO"));
+        assertEquals(1, meterRegistry.counter("loans.id-filter.lookups", "result", "rejected").count());
+    }
+
+    /** A loan created while the tables are being scanned reaches the new filter even if the scan missed it. */
+    @Test
+    void add_duringRebuild_isKept() {
+        when(loanRepository.count()).thenReturn(1L);
+        when(archivedLoanRepository.findLoanIdsAfter(eq(""), any(Limit.class))).thenReturn(List.of());
+        when(loanRepository.findLoanIdsAfter(eq(""), any(Limit.class))).thenAnswer(invocation -> {
+            loanIdFilter.add("LOAN_CREATED_DURING_SCAN");
+            return List.of("LOAN_A");
+        });
+
+        loanIdFilter.rebuild();
+
+        assertTrue(loanIdFilter.mightContain("LOAN_CREATED_DURING_SCAN"));
+    }
+
+    /** Another instance's new loans are not in this filter until the next rebuild, so they must still be looked up. */
+    @Test
+    void mightContain_idIssuedSinceRebuild_isLookedUp() {
+        givenLoans(List.of("LOAN_A"), List.of());
+        loanIdFilter.rebuild();
+
+        String otherInstanceLoan = UniqueIdGenerator.generateUniqueId("LOAN");
+        String longIssuedLoan = "LOAN_" + Long.toHexString((System.currentTimeMillis() - 600_000) << 8).toUpperCase() + "0001";
+
+        assertTrue(loanIdFilter.mightContain(otherInstanceLoan));
+        assertFalse(loanIdFilter.mightContain(longIssuedLoan));
+        assertEquals(1, meterRegistry.counter("loans.id-filter.lookups", "result", "recent").count());
+        assertEquals(1, meterRegistry.counter("loans.id-filter.lookups", "result", "rejected").count());
+    }
+
+    @Test
+    void falsePositiveRate_isReportedFromLookupsOfMissingIds() {
+        givenLoans(List.of("LOAN_A"), List.of());
+        loanIdFilter.rebuild();
+
+        loanIdFilter.mightContain("LOAN_X");
+        loanIdFilter.mightContain("LOAN_Y");
+        loanIdFilter.mightContain("LOAN_Z");
+        loanIdFilter.recordFalsePositive();
+
+        assertEquals(0.25, meterRegistry.get("loans.id-filter.false-positive-rate").gauge().value(), 1e-9);
+        assertTrue(meterRegistry.get("loans.id-filter.expected-false-positive-rate").gauge().value() < 0.01);
+    }
+
+    @Test
+    void mightContain_whenDisabled() {
+        loanIdFilter.enabled = false;
+
+        loanIdFilter.rebuildOnSchedule();
+
+        assertTrue(loanIdFilter.mightContain("LOAN_TYPO"));
+        verifyNoInteractions(loanRepository, archivedLoanRepository);
+    }
+}
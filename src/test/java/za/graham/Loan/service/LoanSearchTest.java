@@ -0,0 +1,150 @@
+package za.graham.Loan.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.model.LoanSearchCriteria;
+import za.graham.Loan.model.LoanSearchPage;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.common.exception.InvalidDataException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs loan searches against the database, since keyset paging is only meaningful on real queries.
+ */
+@DataJpaTest
+@Import({LoanService.class, LoanCache.class, LoanIdFilter.class, SimpleMeterRegistry.class})
+class LoanSearchTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private static final LoanSearchCriteria ALL = new LoanSearchCriteria(null, null, null, null, null);
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanService loanService;
+
+    private final List<Loan> loans = new ArrayList<>();
+
+    /**
+     * 40 loans; every fourth is settled, amounts repeat so that ties are broken by loan ID, and
+     * several loans share a creation date.
+     */
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 40; i++) {
+            loans.add(Loan.builder()
+                    .loanId(String.format("LOAN_%03d", (i * 17) % 40))
+                    .loanAmount(1000.0 * (1 + i % 5))
+                    .term(12)
+                    .status(i % 4 == 0 ? Loan.Status.SETTLED : Loan.Status.ACTIVE)
+                    .createdDate(START.plus(Duration.ofHours(i / 2)))
+                    .build());
+        }
+
+        loanRepository.saveAll(loans);
+    }
+
+    private List<Loan> readAllPages(LoanSearchCriteria criteria, String sort, Sort.Direction direction, int limit) {
+        List<Loan> found = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            LoanSearchPage page = loanService.searchLoans(criteria, sort, direction, limit, cursor);
+
+            assertTrue(page.loans().size() <= limit);
+            assertEquals(page.nextCursor() != null, page.hasNext());
+
+            found.addAll(page.loans());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        return found;
+    }
+
+    private static List<String> ids(List<Loan> loans) {
+        return loans.stream().map(Loan::getLoanId).toList();
+    }
+
+    @Test
+    void searchLoans_pagesThroughEveryLoanOnce_inCreatedDateOrder() {
+        List<String> expected = ids(loans.stream()
+                .sorted(Comparator.comparing(Loan::getCreatedDate).thenComparing(Loan::getLoanId))
+                .toList());
+
+        assertEquals(expected, ids(readAllPages(ALL, "createdDate", Sort.Direction.ASC, 7)));
+    }
+
+    @Test
+    void searchLoans_pagesByAmountDescending_breakingTiesByLoanId() {
+        List<String> expected = ids(loans.stream()
+                .sorted(Comparator.comparing(Loan::getLoanAmount).thenComparing(Loan::getLoanId).reversed())
+                .toList());
+
+        assertEquals(expected, ids(readAllPages(ALL, "loanAmount", Sort.Direction.DESC, 6)));
+    }
+
+    @Test
+    void searchLoans_appliesEveryFilter() {
+        Instant createdFrom = START.plus(Duration.ofHours(2));
+        Instant createdTo = START.plus(Duration.ofHours(15));
+        LoanSearchCriteria criteria = new LoanSearchCriteria(Loan.Status.ACTIVE, createdFrom, createdTo, 2000.0, 4000.0);
+
+        List<String> expected = ids(loans.stream()
+                .filter(loan -> loan.getStatus() == Loan.Status.ACTIVE)
+                .filter(loan -> !loan.getCreatedDate().isBefore(createdFrom) && loan.getCreatedDate().isBefore(createdTo))
+                .filter(loan -> loan.getLoanAmount() >= 2000.0 && loan.getLoanAmount() <= 4000.0)
+                .sorted(Comparator.comparing(Loan::getLoanId))
+                .toList());
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, ids(readAllPages(criteria, "loanId", Sort.Direction.ASC, 4)));
+    }
+
+    /** The last page reports no next page without a count query, even when it is exactly full. */
+    @Test
+    void searchLoans_lastFullPage_hasNoNext() {
+        LoanSearchPage page = loanService.searchLoans(ALL, "loanId", Sort.Direction.ASC, 40, null);
+
+        assertEquals(40, page.loans().size());
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void searchLoans_rejectsCursorFromDifferentSort() {
+        LoanSearchPage page = loanService.searchLoans(ALL, "createdDate", Sort.Direction.ASC, 5, null);
+
+        assertThrows(InvalidDataException.class,
+                () -> loanService.searchLoans(ALL, "loanAmount", Sort.Direction.ASC, 5, page.nextCursor()));
+        assertThrows(InvalidDataException.class,
+                () -> loanService.searchLoans(ALL, "createdDate", Sort.Direction.DESC, 5, page.nextCursor()));
+        assertThrows(InvalidDataException.class,
+                () -> loanService.searchLoans(ALL, "createdDate", Sort.Direction.ASC, 5, "not-a-cursor"));
+    }
+
+    @Test
+    void searchLoans_rejectsUnindexedSortAndInvalidRanges() {
+        assertThrows(InvalidDataException.class,
+                () -> loanService.searchLoans(ALL, "term", Sort.Direction.ASC, 5, null));
+        assertThrows(InvalidDataException.class,
+                () -> loanService.searchLoans(ALL, "loanId", Sort.Direction.ASC, 0, null));
+        assertThrows(InvalidDataException.class,
+                () -> loanService.searchLoans(new LoanSearchCriteria(null, null, null, 500.0, 100.0),
+                        "loanId", Sort.Direction.ASC, 5, null));
+    }
+}
@@ -1,18 +1,32 @@
 package za.graham.Loan.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import za.graham.Archive.model.ArchivedLoan;
+import za.graham.Archive.repository.ArchivedLoanRepository;
+import za.graham.Loan.event.LoanCreatedEvent;
 import za.graham.Loan.exception.LoanNotFoundException;
 import za.graham.Loan.model.Loan;
+import za.graham.Loan.model.LoanQueryResult;
 import za.graham.Loan.repository.LoanRepository;
+import za.graham.common.exception.InvalidDataException;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,9 +35,26 @@ class LoanServiceTest {
     @Mock
     private LoanRepository loanRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LoanCache loanCache;
+
+    @Mock
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Mock
+    private LoanIdFilter loanIdFilter;
+
     @InjectMocks
     private LoanService loanService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(loanIdFilter.mightContain(anyString())).thenReturn(true);
+    }
+
     @Test
     void createLoan_savesAndReturnsLoan() {
         Loan savedLoan = Loan.builder()
@@ -43,6 +74,8 @@ class LoanServiceTest {
         assertEquals(12, result.getTerm());
         assertEquals(Loan.Status.ACTIVE, result.getStatus());
         verify(loanRepository, times(1)).save(any(Loan.class));
+        verify(loanIdFilter).add("LOAN_123");
+        verify(eventPublisher, times(1)).publishEvent(any(LoanCreatedEvent.class));
     }
 
     @Test
@@ -61,6 +94,28 @@ class LoanServiceTest {
         assertNotNull(result);
         assertEquals("LOAN_001", result.getLoanId());
         assertEquals(1000.0, result.getLoanAmount());
+        verify(loanCache).put(loan);
+    }
+
+    /** Settled loans moved out of the live table are still found, unchanged, in the archive. */
+    @Test
+    void getLoan_fallsBackToArchive() {
+        when(loanRepository.findById("LOAN_OLD")).thenReturn(Optional.empty());
+        when(archivedLoanRepository.findById("LOAN_OLD")).thenReturn(Optional.of(ArchivedLoan.builder()
+                .loanId("LOAN_OLD")
+                .loanAmount(1000.0)
+                .term(6)
+                .status(Loan.Status.SETTLED)
+                .version(4L)
+                .settledDate(Instant.parse("2025-01-01T00:00:00Z"))
+                .build()));
+
+        Loan result = loanService.getLoan("LOAN_OLD");
+
+        assertEquals(Loan.Status.SETTLED, result.getStatus());
+        assertEquals(1000.0, result.getLoanAmount());
+        assertEquals(4L, result.getVersion());
+        verify(loanCache).put(result);
     }
 
     @Test
@@ -68,5 +123,89 @@ class LoanServiceTest {
         when(loanRepository.findById("LOAN_MISSING")).thenReturn(Optional.empty());
 
         assertThrows(LoanNotFoundException.class, () -> loanService.getLoan("LOAN_MISSING"));
+        verify(loanIdFilter).recordFalsePositive();
+    }
+
+    /** An ID the filter rules out is rejected without any database read. */
+    @Test
+    void getLoan_whenFilterRulesOutId() {
+        when(loanIdFilter.mightContain("LOAN_TYPO")).thenReturn(false);
+
+        assertThrows(LoanNotFoundException.class, () -> loanService.getLoan("LOAN_TYPO"));
+        verifyNoInteractions(loanRepository, archivedLoanRepository);
+    }
+
+    /** Cached loans skip the database, the rest are read in one query, and unknown IDs are reported, not thrown. */
+    @Test
+    void getLoans_servesCacheFirst_andReportsMissing() {
+        Loan cached = Loan.builder().loanId("LOAN_A").loanAmount(100.0).version(1L).build();
+        Loan live = Loan.builder().loanId("LOAN_B").loanAmount(200.0).version(0L).build();
+
+        when(loanCache.get(anyString())).thenAnswer(invocation -> "LOAN_A".equals(invocation.getArgument(0)) ? cached : null);
+        when(loanRepository.findAllById(List.of("LOAN_B", "LOAN_C"))).thenReturn(List.of(live));
+        when(archivedLoanRepository.findAllById(List.of("LOAN_C"))).thenReturn(List.of());
+
+        LoanQueryResult result = loanService.getLoans(List.of("LOAN_B", "LOAN_A", "LOAN_C", "LOAN_B"));
+
+        assertEquals(List.of(live, cached), result.loans());
+        assertEquals(List.of("LOAN_C"), result.missingLoanIds());
+        verify(loanRepository, never()).findById(any());
+        verify(loanCache).put(live);
+    }
+
+    @Test
+    void getLoans_readsUncachedLoansInChunks() {
+        List<String> loanIds = new ArrayList<>();
+
+        for (int i = 0; i < 600; i++) {
+            loanIds.add("LOAN_" + i);
+        }
+
+        when(loanRepository.findAllById(any())).thenReturn(List.of());
+        when(archivedLoanRepository.findAllById(any())).thenReturn(List.of());
+
+        LoanQueryResult result = loanService.getLoans(loanIds);
+
+        assertEquals(600, result.missingLoanIds().size());
+        verify(loanRepository, times(3)).findAllById(any());
+        verify(archivedLoanRepository, times(3)).findAllById(any());
+    }
+
+    @Test
+    void getLoans_whenTooManyOrNone() {
+        assertThrows(InvalidDataException.class, () -> loanService.getLoans(List.of()));
+        assertThrows(InvalidDataException.class, () -> loanService.getLoans(Collections.nCopies(1001, "LOAN_A")));
+    }
+
+    /** Saving a changed loan refreshes its cache entry with the new version. */
+    @Test
+    void updateLoan_cachesSavedVersion() {
+        Loan loan = Loan.builder().loanId("LOAN_001").status(Loan.Status.SETTLED).version(1L).build();
+        Loan savedLoan = loan.toBuilder().version(2L).build();
+
+        when(loanRepository.saveAndFlush(loan)).thenReturn(savedLoan);
+
+        assertEquals(savedLoan, loanService.updateLoan(loan));
+        verify(loanCache).put(savedLoan);
+    }
+
+    /** Inside a transaction the cache is only refreshed once the change commits. */
+    @Test
+    void updateLoan_cachesSavedVersion_onlyAfterCommit() {
+        Loan loan = Loan.builder().loanId("LOAN_001").status(Loan.Status.SETTLED).version(1L).build();
+        Loan savedLoan = loan.toBuilder().version(2L).build();
+
+        when(loanRepository.saveAndFlush(loan)).thenReturn(savedLoan);
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            loanService.updateLoan(loan);
+            verify(loanCache, never()).put(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(loanCache).put(savedLoan);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
-}
\ No newline at end of file
+}
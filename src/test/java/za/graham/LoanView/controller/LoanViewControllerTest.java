@@ -0,0 +1,72 @@
+package za.graham.LoanView.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import za.graham.Loan.exception.LoanNotFoundException;
+import za.graham.Loan.model.Loan;
+import za.graham.LoanView.model.LoanView;
+import za.graham.LoanView.model.ProjectionLag;
+import za.graham.LoanView.service.LoanViewProjection;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(LoanViewController.class)
+class LoanViewControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LoanViewProjection loanViewProjection;
+
+    @Test
+    void getLoanView_whenProjected() throws Exception {
+        LoanView view = LoanView.builder()
+                .loanId("LOAN_001")
+                .status(Loan.Status.ACTIVE)
+                .loanAmount(1000.0)
+                .term(4)
+                .totalPaid(250.0)
+                .outstandingBalance(750.0)
+                .paymentCount(1)
+                .lastPaymentDate(Instant.now())
+                .nextDueAmount(250.0)
+                .build();
+
+        when(loanViewProjection.getLoanView("LOAN_001")).thenReturn(view);
+
+        mockMvc.perform(get("/loan-views").param("loanId", "LOAN_001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loanId").value("LOAN_001"))
+                .andExpect(jsonPath("$.outstandingBalance").value(750.0))
+                .andExpect(jsonPath("$.paymentCount").value(1))
+                .andExpect(jsonPath("$.nextDueAmount").value(250.0));
+    }
+
+    @Test
+    void getLoanView_whenNotProjected() throws Exception {
+        when(loanViewProjection.getLoanView("LOAN_MISSING")).thenThrow(new LoanNotFoundException("Loan view not found"));
+
+        mockMvc.perform(get("/loan-views").param("loanId", "LOAN_MISSING"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("LoanNotFoundException"))
+                .andExpect(jsonPath("$.message").value("Loan view not found"));
+    }
+
+    @Test
+    void getProjectionLag() throws Exception {
+        when(loanViewProjection.getLag()).thenReturn(new ProjectionLag(10, 8, 2, 15));
+
+        mockMvc.perform(get("/loan-views/lag"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pendingEvents").value(2))
+                .andExpect(jsonPath("$.lagMillis").value(15));
+    }
+}
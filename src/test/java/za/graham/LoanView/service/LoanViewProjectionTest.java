@@ -0,0 +1,138 @@
+package za.graham.LoanView.service;
+
+import org.junit.jupiter.api.Test;
+import za.graham.Installment.event.InstallmentCollectedEvent;
+import za.graham.Loan.event.LoanCreatedEvent;
+import za.graham.Loan.exception.LoanNotFoundException;
+import za.graham.Loan.model.Loan;
+import za.graham.LoanView.model.LoanView;
+import za.graham.LoanView.model.ProjectionLag;
+import za.graham.Payment.event.PaymentProcessedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanViewProjectionTest {
+
+    private final LoanViewProjection projection = new LoanViewProjection();
+
+    private void applyAll() {
+        assertTrue(projection.awaitCaughtUp(Duration.ofSeconds(5)));
+    }
+
+    /** A newly created loan is projected with its full amount outstanding and the first installment due. */
+    @Test
+    void onLoanCreated_projectsActiveLoan() {
+        projection.onLoanCreated(new LoanCreatedEvent("LOAN_001", 1200.0, 12, Instant.now()));
+        applyAll();
+
+        LoanView view = projection.getLoanView("LOAN_001");
+
+        assertEquals(Loan.Status.ACTIVE, view.getStatus());
+        assertEquals(1200.0, view.getOutstandingBalance());
+        assertEquals(0, view.getPaymentCount());
+        assertNull(view.getLastPaymentDate());
+        assertEquals(100.0, view.getNextDueAmount());
+    }
+
+    /** Payments reduce the outstanding balance and update the payment stats in arrival order. */
+    @Test
+    void onPaymentProcessed_updatesBalanceAndStats() {
+        Instant firstPaymentDate = Instant.parse("2026-02-01T10:00:00Z");
+        Instant secondPaymentDate = Instant.parse("2026-03-01T10:00:00Z");
+
+        projection.onLoanCreated(new LoanCreatedEvent("LOAN_001", 1000.0, 4, Instant.now()));
+        projection.onPaymentProcessed(new PaymentProcessedEvent("P1", "LOAN_001", 1000.0, 4, 250.0, firstPaymentDate, false));
+        projection.onPaymentProcessed(new PaymentProcessedEvent("P2", "LOAN_001", 1000.0, 4, 600.0, secondPaymentDate, false));
+        applyAll();
+
+        LoanView view = projection.getLoanView("LOAN_001");
+
+        assertEquals(Loan.Status.ACTIVE, view.getStatus());
+        assertEquals(850.0, view.getTotalPaid());
+        assertEquals(150.0, view.getOutstandingBalance());
+        assertEquals(2, view.getPaymentCount());
+        assertEquals(secondPaymentDate, view.getLastPaymentDate());
+        assertEquals(150.0, view.getNextDueAmount());
+    }
+
+    /** The settling payment moves the view to SETTLED with nothing left to pay. */
+    @Test
+    void onPaymentProcessed_settlesLoan() {
+        projection.onLoanCreated(new LoanCreatedEvent("LOAN_001", 500.0, 2, Instant.now()));
+        projection.onPaymentProcessed(new PaymentProcessedEvent("P1", "LOAN_001", 500.0, 2, 500.0, Instant.now(), true));
+        applyAll();
+
+        LoanView view = projection.getLoanView("LOAN_001");
+
+        assertEquals(Loan.Status.SETTLED, view.getStatus());
+        assertEquals(0.0, view.getOutstandingBalance());
+        assertEquals(0.0, view.getNextDueAmount());
+    }
+
+    /** A payment for a loan the projection has not seen seeds the view from the event. */
+    @Test
+    void onPaymentProcessed_seedsViewForUnknownLoan() {
+        projection.onPaymentProcessed(new PaymentProcessedEvent("P1", "LOAN_002", 900.0, 3, 300.0, Instant.now(), false));
+        applyAll();
+
+        LoanView view = projection.getLoanView("LOAN_002");
+
+        assertEquals(600.0, view.getOutstandingBalance());
+        assertEquals(1, view.getPaymentCount());
+    }
+
+    /** The final installment shows the whole remaining balance, matching what the installment engine collects. */
+    @Test
+    void onInstallmentCollected_showsRemainingBalance_onFinalInstallment() {
+        projection.onLoanCreated(new LoanCreatedEvent("LOAN_003", 100.0, 3, Instant.now()));
+        projection.onPaymentProcessed(new PaymentProcessedEvent("P1", "LOAN_003", 100.0, 3, 33.33, Instant.now(), false));
+        projection.onInstallmentCollected(new InstallmentCollectedEvent("LOAN_003", 1));
+        projection.onPaymentProcessed(new PaymentProcessedEvent("P2", "LOAN_003", 100.0, 3, 33.33, Instant.now(), false));
+        applyAll();
+
+        assertEquals(33.33, projection.getLoanView("LOAN_003").getNextDueAmount());
+
+        projection.onInstallmentCollected(new InstallmentCollectedEvent("LOAN_003", 2));
+        applyAll();
+
+        LoanView view = projection.getLoanView("LOAN_003");
+
+        assertEquals(2, view.getInstallmentsCollected());
+        assertEquals(33.34, view.getOutstandingBalance());
+        assertEquals(33.34, view.getNextDueAmount());
+    }
+
+    /** Events published while the application shuts down are dropped rather than failing the write path. */
+    @Test
+    void onPaymentProcessed_ignoresEvent_afterShutdown() {
+        projection.shutdown();
+
+        assertDoesNotThrow(() -> projection.onPaymentProcessed(
+                new PaymentProcessedEvent("P1", "LOAN_001", 1000.0, 12, 10.0, Instant.now(), false)));
+        assertThrows(LoanNotFoundException.class, () -> projection.getLoanView("LOAN_001"));
+        assertEquals(0, projection.getLag().pendingEvents());
+    }
+
+    @Test
+    void getLoanView_whenNotProjected() {
+        assertThrows(LoanNotFoundException.class, () -> projection.getLoanView("LOAN_MISSING"));
+    }
+
+    /** Once every published event has been applied, the lag reports nothing pending. */
+    @Test
+    void getLag_whenCaughtUp() {
+        projection.onLoanCreated(new LoanCreatedEvent("LOAN_001", 1000.0, 12, Instant.now()));
+        projection.onPaymentProcessed(new PaymentProcessedEvent("P1", "LOAN_001", 1000.0, 12, 10.0, Instant.now(), false));
+        applyAll();
+
+        ProjectionLag lag = projection.getLag();
+
+        assertEquals(2, lag.publishedEvents());
+        assertEquals(2, lag.appliedEvents());
+        assertEquals(0, lag.pendingEvents());
+        assertEquals(0, lag.lagMillis());
+    }
+}
@@ -10,11 +10,15 @@ import za.graham.Loan.exception.LoanAlreadySettledException;
 import za.graham.Loan.exception.LoanNotFoundException;
 import za.graham.Loan.model.Loan;
 import za.graham.Payment.exception.PaymentExceedsOutstandingException;
+import za.graham.Payment.model.LoanContention;
 import za.graham.Payment.model.Payment;
 import za.graham.Payment.service.PaymentService;
+import za.graham.common.audit.AuditEvent;
+import za.graham.common.audit.AuditLog;
 import za.graham.common.exception.InvalidDataException;
 
 import java.time.Instant;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -29,6 +33,9 @@ class PaymentControllerTest {
     @MockitoBean
     private PaymentService paymentService;
 
+    @MockitoBean
+    private AuditLog auditLog;
+
     @Test
     void postLoanPayment_withPayment() throws Exception {
         Loan loan = Loan.builder()
@@ -54,6 +61,9 @@ class PaymentControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.paymentId").value("PAYMENT_001"))
                 .andExpect(jsonPath("$.paymentAmount").value(500.0));
+
+        verify(auditLog).record(eq(AuditEvent.Action.PAYMENT_PROCESSED), eq("LOAN_001"), eq("PAYMENT_001"), eq(500.0),
+                eq(201), eq(AuditEvent.SUCCESS), anyLong());
     }
 
     @Test
@@ -82,6 +92,9 @@ class PaymentControllerTest {
                 .andExpect(status().isConflict())
                 .andExpect(jsonPath("$.error").value("LoanAlreadySettledException"))
                 .andExpect(jsonPath("$.message").value("Loan is already settled"));
+
+        verify(auditLog).record(eq(AuditEvent.Action.PAYMENT_PROCESSED), eq("LOAN_001"), isNull(), anyDouble(),
+                eq(409), eq("LoanAlreadySettledException"), anyLong());
     }
 
     @Test
@@ -111,4 +124,26 @@ class PaymentControllerTest {
                 .andExpect(jsonPath("$.error").value("InvalidDataException"))
                 .andExpect(jsonPath("$.message").value("Payment amount invalid"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getContentionReport() throws Exception {
+        when(paymentService.getContentionReport(5))
+                .thenReturn(List.of(new LoanContention("LOAN_HOT", true, 500, 420, 80, 12)));
+
+        mockMvc.perform(get("/payments/contention").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].loanId").value("LOAN_HOT"))
+                .andExpect(jsonPath("$[0].hot").value(true))
+                .andExpect(jsonPath("$[0].maxBatchSize").value(12));
+    }
+
+    @Test
+    void getContentionReport_whenLimitInvalid() throws Exception {
+        when(paymentService.getContentionReport(-1))
+                .thenThrow(new InvalidDataException("Contention report limit must be between 1 and 1000"));
+
+        mockMvc.perform(get("/payments/contention").param("limit", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Contention report limit must be between 1 and 1000"));
+    }
+}
@@ -0,0 +1,221 @@
+package za.graham.Payment.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import za.graham.Loan.exception.LoanAlreadySettledException;
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.Loan.service.LoanCache;
+import za.graham.Loan.service.LoanIdFilter;
+import za.graham.Loan.service.LoanService;
+import za.graham.Payment.exception.PaymentExceedsOutstandingException;
+import za.graham.Payment.model.Payment;
+import za.graham.Payment.repository.PaymentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires concurrent random payments at the real {PaymentService} and database, then checks that every loan's
+ * payments still add up: no loan is overpaid, every settled loan has exactly one settling payment and is paid in
+ * full, and the payments stored for each loan are exactly the ones callers were told were accepted.
+ * <p>
+ * Runs at a small size by default. Larger runs report the throughput and latency percentiles of each distribution:
+ * mvn test -Dtest=PaymentServiceStressTest -Dstress.threads=32 -Dstress.payments=50000
+ */
+@DataJpaTest(showSql = false)
+@Import({PaymentService.class, LoanService.class, LoanCache.class, LoanIdFilter.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentServiceStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 16);
+
+    private static final int PAYMENTS = Integer.getInteger("stress.payments", 2_000);
+
+    private static final int MAX_PAYMENT = 500;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    /**
+     * A few loans receive every payment, so most payments queue behind others for the same loan.
+     */
+    @Test
+    void hotLoans_keepInvariants() throws Exception {
+        run("hot", Math.max(1, THREADS / 4));
+    }
+
+    /**
+     * Payments are spread over many loans, so they rarely meet on the same loan.
+     */
+    @Test
+    void coldLoans_keepInvariants() throws Exception {
+        run("cold", Math.max(1, PAYMENTS / 8));
+    }
+
+    private void run(final String distribution, final int loanCount) throws Exception {
+        // Sized so that most loans are settled near the end of the run and later payments on them are rejected
+        double loanAmount = Math.max(MAX_PAYMENT, Math.round(PAYMENTS / (double) loanCount * MAX_PAYMENT / 2 * 0.8));
+        List<String> loanIds = new ArrayList<>(loanCount);
+
+        for (int i = 0; i < loanCount; i++) {
+            loanIds.add(loanService.createLoan(loanAmount, 12).getLoanId());
+        }
+
+        Map<String, DoubleAdder> acceptedAmounts = new ConcurrentHashMap<>();
+        loanIds.forEach(loanId -> acceptedAmounts.put(loanId, new DoubleAdder()));
+
+        int paymentsPerThread = PAYMENTS / THREADS;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<ThreadResult>> futures = new ArrayList<>(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+
+            futures.add(executor.submit(() -> {
+                ThreadResult result = new ThreadResult(paymentsPerThread);
+                startGate.await();
+
+                for (int i = 0; i < paymentsPerThread; i++) {
+                    String loanId = loanIds.get(random.nextInt(loanIds.size()));
+                    // Whole amounts, so sums compare exactly
+                    double paymentAmount = 1 + random.nextInt(MAX_PAYMENT);
+                    long start = System.nanoTime();
+
+                    try {
+                        Payment payment = paymentService.processLoanPayment(loanId, paymentAmount);
+                        assertEquals(paymentAmount, payment.getPaymentAmount());
+                        acceptedAmounts.get(loanId).add(paymentAmount);
+                        result.accepted++;
+                    } catch (PaymentExceedsOutstandingException ex) {
+                        result.exceeded++;
+                    } catch (LoanAlreadySettledException ex) {
+                        result.settled++;
+                    }
+
+                    result.latencies[i] = System.nanoTime() - start;
+                }
+
+                return result;
+            }));
+        }
+
+        long start = System.nanoTime();
+        startGate.countDown();
+
+        List<ThreadResult> results = new ArrayList<>(THREADS);
+
+        for (Future<ThreadResult> future : futures) {
+            results.add(future.get(5, TimeUnit.MINUTES));
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        report(distribution, loanCount, results, elapsedNanos);
+        assertInvariants(loanIds, acceptedAmounts, results);
+    }
+
+    private void assertInvariants(final List<String> loanIds, final Map<String, DoubleAdder> acceptedAmounts,
+                                  final List<ThreadResult> results) {
+        Map<String, List<Payment>> paymentsByLoan = paymentRepository.findAll().stream()
+                .filter(payment -> acceptedAmounts.containsKey(payment.getLoan().getLoanId()))
+                .collect(Collectors.groupingBy(payment -> payment.getLoan().getLoanId()));
+
+        long accepted = results.stream().mapToLong(result -> result.accepted).sum();
+        long settledLoans = 0;
+
+        assertEquals(accepted, paymentsByLoan.values().stream().mapToLong(List::size).sum(),
+                "every accepted payment is stored, and nothing else");
+
+        for (String loanId : loanIds) {
+            Loan loan = loanRepository.findById(loanId).orElseThrow();
+            List<Payment> payments = paymentsByLoan.getOrDefault(loanId, List.of());
+            double totalPaid = payments.stream().mapToDouble(Payment::getPaymentAmount).sum();
+            long settlingPayments = payments.stream().filter(Payment::isSettlesLoan).count();
+
+            assertTrue(totalPaid <= loan.getLoanAmount(), () -> "overpaid " + loanId);
+            assertEquals(acceptedAmounts.get(loanId).sum(), totalPaid, () -> "balance of " + loanId);
+
+            if (loan.getStatus() == Loan.Status.SETTLED) {
+                settledLoans++;
+                assertEquals(1, settlingPayments, () -> "settling payments on " + loanId);
+                assertEquals(loan.getLoanAmount(), totalPaid, () -> "settled " + loanId + " is paid in full");
+            } else {
+                assertEquals(0, settlingPayments, () -> "settling payments on active " + loanId);
+                assertTrue(totalPaid < loan.getLoanAmount(), () -> "fully paid " + loanId + " is still active");
+            }
+        }
+
+        long settledRejections = results.stream().mapToLong(result -> result.settled).sum();
+
+        if (settledRejections > 0) {
+            assertTrue(settledLoans > 0, "payments were rejected as settled, so some loan must be settled");
+        }
+    }
+
+    private static void report(final String distribution, final int loanCount, final List<ThreadResult> results,
+                               final long elapsedNanos) {
+        long[] latencies = results.stream().flatMapToLong(result -> Arrays.stream(result.latencies)).sorted().toArray();
+        Map<String, Long> outcomes = new HashMap<>();
+        outcomes.put("accepted", results.stream().mapToLong(result -> result.accepted).sum());
+        outcomes.put("exceeded", results.stream().mapToLong(result -> result.exceeded).sum());
+        outcomes.put("settled", results.stream().mapToLong(result -> result.settled).sum());
+
+        System.out.printf("%s: %d threads, %d loans, %d payments %s in %d ms, %.0f payments/s%n", distribution,
+                THREADS, loanCount, latencies.length, outcomes, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                latencies.length * 1e9 / elapsedNanos);
+        System.out.printf("%s latency: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                distribution, percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                percentile(latencies, 99.9), percentile(latencies, 100));
+    }
+
+    private static double percentile(final long[] sortedNanos, final double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class ThreadResult {
+
+        private final long[] latencies;
+
+        private long accepted;
+
+        private long exceeded;
+
+        private long settled;
+
+        private ThreadResult(final int payments) {
+            this.latencies = new long[payments];
+        }
+    }
+}
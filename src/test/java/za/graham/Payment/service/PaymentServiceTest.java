@@ -5,21 +5,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 import za.graham.Loan.exception.LoanAlreadySettledException;
 import za.graham.Loan.exception.LoanNotFoundException;
 import za.graham.Loan.model.Loan;
 import za.graham.Loan.service.LoanService;
+import za.graham.Payment.event.PaymentProcessedEvent;
 import za.graham.Payment.exception.PaymentExceedsOutstandingException;
+import za.graham.Payment.model.LoanContention;
 import za.graham.Payment.model.Payment;
+import za.graham.Payment.model.PaymentOutcome;
 import za.graham.Payment.repository.PaymentRepository;
 import za.graham.common.exception.InvalidDataException;
 
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +43,12 @@ class PaymentServiceTest {
     @Mock
     private LoanService loanService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -120,6 +138,7 @@ class PaymentServiceTest {
                 () -> paymentService.processLoanPayment("LOAN_001", 1500.0));
 
         verify(paymentRepository, never()).save(any(Payment.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     /**
@@ -144,6 +163,19 @@ class PaymentServiceTest {
                 () -> paymentService.processLoanPayment("LOAN_001", 500.0));
     }
 
+    /** One cent more than the outstanding balance is an overpayment. */
+    @Test
+    void processLoanPayment_throwsPaymentExceedsOutstandingException_whenOneCentOver() throws LoanNotFoundException {
+        Loan loan = buildActiveLoan("LOAN_001", 1000.0);
+
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+        when(paymentRepository.findByLoan(loan)).thenReturn(Collections.emptyList());
+
+        assertThrows(PaymentExceedsOutstandingException.class,
+                () -> paymentService.processLoanPayment("LOAN_001", 1000.01));
+        assertEquals(Loan.Status.ACTIVE, loan.getStatus());
+    }
+
     // -------------------------------------------------------------------------
     // processLoanPayment — happy paths
     // -------------------------------------------------------------------------
@@ -196,5 +228,227 @@ class PaymentServiceTest {
         assertEquals("PAYMENT_FINAL", result.getPaymentId());
         assertEquals(Loan.Status.SETTLED, loan.getStatus());
         verify(paymentRepository, times(1)).save(any(Payment.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof PaymentProcessedEvent processed && processed.settlesLoan()));
+    }
+
+    /**
+     * 1000 - (333.33 + 333.33) is 333.34000000000003 in floating point, so the balance is kept exactly
+     * and paying R333.34 settles the loan.
+     */
+    @Test
+    void processLoanPayment_settlesLoan_whenPaymentEqualsOutstandingToTheCent() throws LoanNotFoundException,
+            PaymentExceedsOutstandingException, LoanAlreadySettledException {
+        Loan loan = buildActiveLoan("LOAN_001", 1000.0);
+        List<Payment> existingPayments = List.of(
+                Payment.builder().paymentId("P1").loan(loan).paymentAmount(333.33).paymentDate(Instant.now()).build(),
+                Payment.builder().paymentId("P2").loan(loan).paymentAmount(333.33).paymentDate(Instant.now()).build());
+
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+        when(paymentRepository.findByLoan(loan)).thenReturn(existingPayments);
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Payment result = paymentService.processLoanPayment("LOAN_001", 333.34);
+
+        assertTrue(result.isSettlesLoan());
+        assertEquals(Loan.Status.SETTLED, loan.getStatus());
+    }
+
+    /** Amounts finer than a cent are accepted and balanced exactly, with no tolerance either way. */
+    @Test
+    void processLoanPayment_balancesFractionOfCentExactly() throws LoanNotFoundException,
+            PaymentExceedsOutstandingException, LoanAlreadySettledException {
+        Loan loan = buildActiveLoan("LOAN_001", 10.0);
+        List<Payment> existingPayments = List.of(
+                Payment.builder().paymentId("P1").loan(loan).paymentAmount(0.005).paymentDate(Instant.now()).build());
+
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+        when(paymentRepository.findByLoan(loan)).thenReturn(existingPayments);
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThrows(PaymentExceedsOutstandingException.class, () -> paymentService.processLoanPayment("LOAN_001", 9.996));
+
+        Payment result = paymentService.processLoanPayment("LOAN_001", 9.995);
+
+        assertTrue(result.isSettlesLoan());
+        assertEquals(Loan.Status.SETTLED, loan.getStatus());
+    }
+
+    /**
+     * The payments and the settlement commit together: when the settlement fails the transaction is rolled back,
+     * the caller is told the payment failed and no event is published for it.
+     */
+    @Test
+    void processLoanPayment_rollsBackPayment_whenSettlementFails() {
+        Loan loan = buildActiveLoan("LOAN_001", 1000.0);
+
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+        when(paymentRepository.findByLoan(loan)).thenReturn(Collections.emptyList());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(loanService.updateLoan(loan)).thenThrow(new ObjectOptimisticLockingFailureException(Loan.class, "LOAN_001"));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> paymentService.processLoanPayment("LOAN_001", 1000.0));
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    /** A failing event listener runs after the commit, so it cannot turn a recorded payment into an error. */
+    @Test
+    void processLoanPayment_returnsPayment_whenEventListenerFails() {
+        Loan loan = buildActiveLoan("LOAN_001", 1000.0);
+
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+        when(paymentRepository.findByLoan(loan)).thenReturn(Collections.emptyList());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new IllegalStateException("listener failed")).when(eventPublisher).publishEvent(any(Object.class));
+
+        Payment payment = paymentService.processLoanPayment("LOAN_001", 250.0);
+
+        assertEquals(250.0, payment.getPaymentAmount());
+        verify(transactionManager).commit(any());
+    }
+
+    // -------------------------------------------------------------------------
+    // processLoanPayment — same-loan coalescing
+    // -------------------------------------------------------------------------
+
+    private CompletableFuture<Payment> submitAndAwaitQueued(String loanId, double amount) throws InterruptedException {
+        CompletableFuture<Payment> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(paymentService.processLoanPayment(loanId, amount));
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        thread.start();
+
+        // A queued payment parks on the loan's lock while another payment is being processed
+        while (thread.getState() != Thread.State.WAITING && !result.isDone()) {
+            Thread.sleep(1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Payments queued behind an in-flight payment on the same loan are applied as one batch in arrival order:
+     * the one that brings the balance to zero is marked as settling, later ones are rejected, and the accepted
+     * payments are saved together.
+     */
+    @Test
+    void processLoanPayment_coalescesQueuedPayments_inArrivalOrder() throws Exception {
+        Loan loan = buildActiveLoan("LOAN_001", 1000.0);
+        Payment firstPayment = Payment.builder().paymentId("P1").loan(loan).paymentAmount(100.0).build();
+        CountDownLatch releaseFirstPayment = new CountDownLatch(1);
+        CountDownLatch firstPaymentStarted = new CountDownLatch(1);
+
+        when(loanService.getLoan("LOAN_001"))
+                .thenAnswer(invocation -> {
+                    firstPaymentStarted.countDown();
+                    releaseFirstPayment.await(5, TimeUnit.SECONDS);
+                    return loan;
+                })
+                .thenReturn(loan);
+        when(paymentRepository.findByLoan(loan))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(List.of(firstPayment));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(paymentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CompletableFuture<Payment> first = CompletableFuture.supplyAsync(
+                () -> paymentService.processLoanPayment("LOAN_001", 100.0));
+        assertTrue(firstPaymentStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Payment> second = submitAndAwaitQueued("LOAN_001", 400.0);
+        CompletableFuture<Payment> settling = submitAndAwaitQueued("LOAN_001", 500.0);
+        CompletableFuture<Payment> afterSettlement = submitAndAwaitQueued("LOAN_001", 10.0);
+
+        releaseFirstPayment.countDown();
+
+        assertFalse(first.get(5, TimeUnit.SECONDS).isSettlesLoan());
+        assertFalse(second.get(5, TimeUnit.SECONDS).isSettlesLoan());
+        assertTrue(settling.get(5, TimeUnit.SECONDS).isSettlesLoan());
+        Exception rejected = assertThrows(Exception.class, () -> afterSettlement.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(LoanAlreadySettledException.class, rejected.getCause());
+
+        assertEquals(Loan.Status.SETTLED, loan.getStatus());
+        verify(loanService, times(2)).getLoan("LOAN_001");
+        verify(paymentRepository, times(1)).save(any(Payment.class));
+        verify(paymentRepository, times(1)).saveAll(argThat((List<Payment> batch) -> batch.size() == 2));
+        verify(loanService, times(1)).updateLoan(loan);
+
+        List<LoanContention> report = paymentService.getContentionReport(10);
+        assertEquals(1, report.size());
+        assertEquals("LOAN_001", report.get(0).loanId());
+        assertEquals(3, report.get(0).contendedPayments());
+        assertEquals(3, report.get(0).maxBatchSize());
+    }
+
+    // -------------------------------------------------------------------------
+    // processLoanPayments — batch API
+    // -------------------------------------------------------------------------
+
+    /**
+     * A batch is applied in order with one loan read and one save; invalid and excess amounts are reported
+     * per payment without stopping the rest of the batch.
+     */
+    @Test
+    void processLoanPayments_reportsOutcomePerPayment_inOrder() {
+        Loan loan = buildActiveLoan("LOAN_001", 1000.0);
+
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+        when(paymentRepository.findByLoan(loan)).thenReturn(Collections.emptyList());
+        when(paymentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<PaymentOutcome> outcomes = paymentService.processLoanPayments("LOAN_001", List.of(300.0, -5.0, 900.0, 700.0));
+
+        assertEquals(4, outcomes.size());
+        assertEquals(300.0, outcomes.get(0).payment().getPaymentAmount());
+        assertInstanceOf(InvalidDataException.class, outcomes.get(1).error());
+        assertInstanceOf(PaymentExceedsOutstandingException.class, outcomes.get(2).error());
+        assertTrue(outcomes.get(3).payment().isSettlesLoan());
+        assertEquals(Loan.Status.SETTLED, loan.getStatus());
+        verify(loanService, times(1)).getLoan("LOAN_001");
+        verify(paymentRepository, times(1)).saveAll(argThat((List<Payment> batch) -> batch.size() == 2));
+    }
+
+    /** A payment that failed with something other than a RuntimeException reports that cause, wrapped. */
+    @Test
+    void unwrap_wrapsCause_whenNotRuntimeException() {
+        AssertionError error = new AssertionError("payment worker failed");
+
+        RuntimeException outcome = PaymentService.unwrap(new CompletionException(error));
+
+        assertInstanceOf(IllegalStateException.class, outcome);
+        assertSame(error, outcome.getCause());
+
+        IllegalArgumentException runtime = new IllegalArgumentException("bad");
+        assertSame(runtime, PaymentService.unwrap(new CompletionException(runtime)));
+        assertSame(runtime, PaymentService.unwrap(runtime));
+    }
+
+    @Test
+    void getContentionReport_throwsInvalidDataException_whenLimitOutOfRange() {
+        assertThrows(InvalidDataException.class, () -> paymentService.getContentionReport(-1));
+        assertThrows(InvalidDataException.class, () -> paymentService.getContentionReport(0));
+        assertThrows(InvalidDataException.class, () -> paymentService.getContentionReport(1_001));
+    }
+
+    /** Uncontended loans do not appear in the contention report. */
+    @Test
+    void getContentionReport_isEmpty_whenNoConcurrentPayments() {
+        Loan loan = buildActiveLoan("LOAN_001", 1000.0);
+
+        when(loanService.getLoan("LOAN_001")).thenReturn(loan);
+        when(paymentRepository.findByLoan(loan)).thenReturn(Collections.emptyList());
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        paymentService.processLoanPayment("LOAN_001", 100.0);
+
+        assertTrue(paymentService.getContentionReport(10).isEmpty());
     }
-}
\ No newline at end of file
+}
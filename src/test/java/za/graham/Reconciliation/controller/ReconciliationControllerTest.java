@@ -0,0 +1,46 @@
+package za.graham.Reconciliation.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import za.graham.Reconciliation.model.ReconciliationImportResult;
+import za.graham.Reconciliation.service.ReconciliationImportService;
+import za.graham.common.exception.InvalidDataException;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReconciliationController.class)
+class ReconciliationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ReconciliationImportService reconciliationImportService;
+
+    @Test
+    void importFile() throws Exception {
+        when(reconciliationImportService.importFile("bank.csv"))
+                .thenReturn(new ReconciliationImportResult("bank.csv", 1000, 990, 10, "/imports/bank.csv.errors.csv", 20, 400, 2380.9));
+
+        mockMvc.perform(post("/reconciliations").param("fileName", "bank.csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(990))
+                .andExpect(jsonPath("$.rejected").value(10))
+                .andExpect(jsonPath("$.errorFile").value("/imports/bank.csv.errors.csv"));
+    }
+
+    @Test
+    void importFile_whenFileMissing() throws Exception {
+        when(reconciliationImportService.importFile("missing.csv"))
+                .thenThrow(new InvalidDataException("Reconciliation file not found {fileName: missing.csv}"));
+
+        mockMvc.perform(post("/reconciliations").param("fileName", "missing.csv"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("InvalidDataException"));
+    }
+}
@@ -0,0 +1,90 @@
+package za.graham.Reconciliation.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import za.graham.Payment.model.Payment;
+import za.graham.Payment.model.PaymentOutcome;
+import za.graham.Payment.service.PaymentService;
+import za.graham.Reconciliation.model.ReconciliationChunk;
+import za.graham.Reconciliation.model.ReconciliationImportResult;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput benchmark for the reconciliation importer on a generated file.
+ * Disabled by default, run with: mvn test -Dtest=ReconciliationImportBenchmark -Dbenchmark=true [-Dbenchmark.rows=5000000]
+ * <p>
+ * Measures parsing on its own, then the full import against a {PaymentService} stand-in that accepts
+ * every payment, so the figures isolate the importer from database cost.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReconciliationImportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5_000_000);
+
+    private static final int LOANS = 100_000;
+
+    @TempDir
+    Path importDirectory;
+
+    private Path generateFile() throws Exception {
+        Path file = importDirectory.resolve("benchmark.csv");
+        Random random = new Random(42);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("loanId,paymentAmount\n");
+
+            for (int i = 0; i < ROWS; i++) {
+                writer.write(String.format("LOAN_%07X,%d.%02d%n", random.nextInt(LOANS), 1 + random.nextInt(5000), random.nextInt(100)));
+            }
+        }
+
+        return file;
+    }
+
+    @Test
+    void benchmarkImport() throws Exception {
+        Path file = generateFile();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            new ReconciliationFileParser(parallelism).parse(file);
+        }
+
+        long start = System.nanoTime();
+        List<ReconciliationChunk> chunks = new ReconciliationFileParser(parallelism).parse(file);
+        long parseNanos = System.nanoTime() - start;
+        long parsedRows = chunks.stream().mapToLong(ReconciliationChunk::size).sum();
+
+        assertEquals(ROWS, parsedRows);
+        System.out.printf("parse: %d rows, %d MB in %d ms, %.0f rows/s%n", parsedRows, Files.size(file) >> 20,
+                TimeUnit.NANOSECONDS.toMillis(parseNanos), parsedRows * 1e9 / parseNanos);
+
+        ReconciliationImportService importService = new ReconciliationImportService();
+        importService.importDirectory = importDirectory.toString();
+        importService.workers = parallelism;
+        importService.paymentService = new PaymentService() {
+            @Override
+            public List<PaymentOutcome> processLoanPayments(final String loanId, final List<Double> paymentAmounts) {
+                List<PaymentOutcome> outcomes = new ArrayList<>(paymentAmounts.size());
+                paymentAmounts.forEach(amount -> outcomes.add(new PaymentOutcome(Payment.builder().paymentAmount(amount).build(), null)));
+                return outcomes;
+            }
+        };
+
+        ReconciliationImportResult result = importService.importFile(file.getFileName().toString());
+
+        assertEquals(ROWS, result.accepted());
+        System.out.printf("import: %d rows, parse %d ms, process %d ms, %.0f rows/s%n", result.rows(),
+                result.parseMillis(), result.processMillis(), result.rowsPerSecond());
+    }
+}
@@ -0,0 +1,168 @@
+package za.graham.Reconciliation.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import za.graham.Loan.exception.LoanNotFoundException;
+import za.graham.Payment.exception.PaymentExceedsOutstandingException;
+import za.graham.Payment.model.Payment;
+import za.graham.Payment.model.PaymentOutcome;
+import za.graham.Payment.service.PaymentService;
+import za.graham.Reconciliation.model.ReconciliationChunk;
+import za.graham.Reconciliation.model.ReconciliationImportResult;
+import za.graham.common.exception.InvalidDataException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationImportServiceTest {
+
+    @Mock
+    private PaymentService paymentService;
+
+    @InjectMocks
+    private ReconciliationImportService reconciliationImportService;
+
+    @TempDir
+    Path importDirectory;
+
+    private final Map<String, List<Double>> appliedPayments = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        reconciliationImportService.importDirectory = importDirectory.toString();
+        reconciliationImportService.workers = 4;
+        reconciliationImportService.batchSize = 2;
+    }
+
+    /** Records every payment per loan; LOAN_MISSING does not exist and LOAN_SMALL only has R100 outstanding. */
+    private void stubPaymentService() {
+        when(paymentService.processLoanPayments(anyString(), anyList())).thenAnswer(invocation -> {
+            String loanId = invocation.getArgument(0);
+            List<Double> amounts = invocation.getArgument(1);
+            List<Double> applied = appliedPayments.computeIfAbsent(loanId, id -> new ArrayList<>());
+            List<PaymentOutcome> outcomes = new ArrayList<>();
+
+            for (Double amount : amounts) {
+                if (loanId.equals("LOAN_MISSING")) {
+                    outcomes.add(new PaymentOutcome(null, new LoanNotFoundException("Loan not found {loanId: LOAN_MISSING}")));
+                } else if (loanId.equals("LOAN_SMALL") && applied.stream().mapToDouble(Double::doubleValue).sum() + amount > 100) {
+                    outcomes.add(new PaymentOutcome(null, new PaymentExceedsOutstandingException(
+                            "Payment exceeds outstanding paymentAmount {outstandingLoanAmount=50.00, paymentAmount=80.00}")));
+                } else {
+                    applied.add(amount);
+                    outcomes.add(new PaymentOutcome(Payment.builder().paymentAmount(amount).build(), null));
+                }
+            }
+
+            return outcomes;
+        });
+    }
+
+    /**
+     * Rows are applied per loan in file order, and rejected rows land in the error file with their
+     * line number and the same exception type name the payment API reports.
+     */
+    @Test
+    void importFile_appliesRowsInOrderAndWritesRejects() throws Exception {
+        stubPaymentService();
+        Files.writeString(importDirectory.resolve("bank.csv"), String.join("\r\n",
+                "loanId,paymentAmount",
+                "LOAN_A,100.50",
+                "LOAN_SMALL,50",
+                "LOAN_A, 200 ",
+                "LOAN_MISSING,10",
+                "LOAN_SMALL,80",
+                "LOAN_A,abc",
+                "not a row",
+                "LOAN_A,300.25,BANKREF123",
+                "LOAN_SMALL,50",
+                ""));
+
+        ReconciliationImportResult result = reconciliationImportService.importFile("bank.csv");
+
+        assertEquals(9, result.rows());
+        assertEquals(5, result.accepted());
+        assertEquals(4, result.rejected());
+        assertEquals(List.of(100.50, 200.0, 300.25), appliedPayments.get("LOAN_A"));
+        assertEquals(List.of(50.0, 50.0), appliedPayments.get("LOAN_SMALL"));
+
+        List<String> errors = Files.readAllLines(Path.of(result.errorFile()));
+
+        assertEquals(List.of(
+                "lineNumber,loanId,paymentAmount,error,message",
+                "5,LOAN_MISSING,10.0,LoanNotFoundException,Loan not found {loanId: LOAN_MISSING}",
+                "6,LOAN_SMALL,80.0,PaymentExceedsOutstandingException,\"Payment exceeds outstanding paymentAmount {outstandingLoanAmount=50.00, paymentAmount=80.00}\"",
+                "7,LOAN_A,,InvalidDataException,Malformed payment amount",
+                "8,,,InvalidDataException,\"Malformed row, expected loanId,paymentAmount\""), errors);
+    }
+
+    /** Files with no rejected rows produce no error file. */
+    @Test
+    void importFile_withoutRejects() throws Exception {
+        stubPaymentService();
+        Files.writeString(importDirectory.resolve("clean.csv"), "LOAN_A,1\nLOAN_B,2\n");
+
+        ReconciliationImportResult result = reconciliationImportService.importFile("clean.csv");
+
+        assertEquals(2, result.accepted());
+        assertNull(result.errorFile());
+    }
+
+    @Test
+    void importFile_rejectsPathsOutsideImportDirectory() {
+        assertThrows(InvalidDataException.class, () -> reconciliationImportService.importFile("../secrets.csv"));
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void importFile_whenFileMissing() {
+        assertThrows(InvalidDataException.class, () -> reconciliationImportService.importFile("missing.csv"));
+    }
+
+    /** Splitting into many chunks keeps every row exactly once with the right file line numbers. */
+    @Test
+    void parse_splitsAtLineBoundaries() throws Exception {
+        StringBuilder content = new StringBuilder("loanId,paymentAmount\n");
+
+        for (int i = 1; i <= 1000; i++) {
+            content.append("LOAN_").append(i % 7).append(',').append(i).append(".").append(i % 100).append('\n');
+        }
+
+        Path file = importDirectory.resolve("many.csv");
+        Files.writeString(file, content);
+
+        List<ReconciliationChunk> chunks = new ReconciliationFileParser(16).parse(file);
+        List<Double> amounts = new ArrayList<>();
+
+        assertTrue(chunks.size() > 1);
+
+        for (ReconciliationChunk chunk : chunks) {
+            for (int row = 0; row < chunk.size(); row++) {
+                long lineNumber = chunk.getLineNumber(row);
+                int i = (int) lineNumber - 1;
+
+                assertNull(chunk.getError(row));
+                assertEquals("LOAN_" + (i % 7), chunk.getLoanId(row));
+                assertEquals(Double.parseDouble(i + "." + (i % 100)), chunk.getPaymentAmount(row));
+                amounts.add(chunk.getPaymentAmount(row));
+            }
+        }
+
+        assertEquals(1000, amounts.size());
+    }
+}
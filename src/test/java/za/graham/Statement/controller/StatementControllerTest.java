@@ -0,0 +1,75 @@
+package za.graham.Statement.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import za.graham.Statement.exception.StatementJobNotFoundException;
+import za.graham.Statement.exception.StatementJobRunningException;
+import za.graham.Statement.model.StatementJob;
+import za.graham.Statement.model.StatementJobRun;
+import za.graham.Statement.service.StatementJobService;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatementController.class)
+class StatementControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private StatementJobService statementJobService;
+
+    @Test
+    void generateStatements() throws Exception {
+        when(statementJobService.startStatements(YearMonth.of(2026, 9), false))
+                .thenReturn(StatementJob.running("2026-09"));
+
+        mockMvc.perform(post("/statements").param("period", "2026-09"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/statements/2026-09"))
+                .andExpect(jsonPath("$.period").value("2026-09"))
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    void generateStatements_whenAlreadyRunning() throws Exception {
+        when(statementJobService.startStatements(YearMonth.of(2026, 9), true))
+                .thenThrow(new StatementJobRunningException("A statement run is already in progress"));
+
+        mockMvc.perform(post("/statements").param("period", "2026-09").param("restart", "true"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("StatementJobRunningException"));
+    }
+
+    @Test
+    void getStatementJob() throws Exception {
+        StatementJobRun run = new StatementJobRun("2026-09", "/data/statements/2026-09", 8, 0, 10000, 9500, 2000, 5000.0);
+        when(statementJobService.getStatementJob(YearMonth.of(2026, 9)))
+                .thenReturn(new StatementJob("2026-09", StatementJob.Status.COMPLETED,
+                        Instant.parse("2026-10-01T00:00:00Z"), Instant.parse("2026-10-01T00:00:02Z"), run, null));
+
+        mockMvc.perform(get("/statements/2026-09"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.run.statementsWritten").value(9500))
+                .andExpect(jsonPath("$.run.loansPerSecond").value(5000.0));
+    }
+
+    @Test
+    void getStatementJob_whenNotStarted() throws Exception {
+        when(statementJobService.getStatementJob(YearMonth.of(2026, 9)))
+                .thenThrow(new StatementJobNotFoundException("No statement run started {period: 2026-09}"));
+
+        mockMvc.perform(get("/statements/2026-09"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("StatementJobNotFoundException"));
+    }
+}
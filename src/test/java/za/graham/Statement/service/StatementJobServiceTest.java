@@ -0,0 +1,288 @@
+package za.graham.Statement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.repository.LoanRepository;
+import za.graham.Payment.model.LoanPaymentRecord;
+import za.graham.Payment.repository.PaymentRepository;
+import za.graham.Statement.exception.StatementJobNotFoundException;
+import za.graham.Statement.exception.StatementJobRunningException;
+import za.graham.Statement.model.LoanStatement;
+import za.graham.Statement.model.StatementJob;
+import za.graham.Statement.model.StatementJobRun;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StatementJobServiceTest {
+
+    private static final YearMonth PERIOD = YearMonth.of(2026, 9);
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @InjectMocks
+    private StatementJobService statementJobService;
+
+    @TempDir
+    Path outputDirectory;
+
+    private final List<Loan> loans = new ArrayList<>();
+
+    private final List<LoanPaymentRecord> payments = new ArrayList<>();
+
+    private void addLoan(String loanId, double amount) {
+        loans.add(Loan.builder()
+                .loanId(loanId)
+                .loanAmount(amount)
+                .term(12)
+                .status(Loan.Status.ACTIVE)
+                .createdDate(Instant.parse("2026-01-01T00:00:00Z"))
+                .build());
+    }
+
+    private void addPayment(String loanId, double amount, String paymentDate) {
+        payments.add(new LoanPaymentRecord(loanId, "P" + payments.size(), amount, Instant.parse(paymentDate)));
+    }
+
+    /** Backs the mocked repositories with the in-memory loans and payments, honouring ranges, order and limits. */
+    @BeforeEach
+    void setUp() {
+        statementJobService.outputDirectory = outputDirectory.toString();
+        statementJobService.partitions = 2;
+        statementJobService.pageSize = 2;
+
+        addLoan("LOAN_A", 1000.0);
+        addLoan("LOAN_B", 500.0);
+        addLoan("LOAN_C", 300.0);
+        addLoan("LOAN_D", 600.0);
+
+        addPayment("LOAN_A", 200.0, "2026-08-10T00:00:00Z");
+        addPayment("LOAN_A", 100.0, "2026-09-10T00:00:00Z");
+        addPayment("LOAN_B", 500.0, "2026-08-15T00:00:00Z");
+        addPayment("LOAN_D", 100.0, "2026-09-01T00:00:00Z");
+        addPayment("LOAN_D", 50.0, "2026-09-20T00:00:00Z");
+        addPayment("LOAN_D", 450.0, "2026-10-02T00:00:00Z");
+
+        when(loanRepository.count()).thenAnswer(invocation -> (long) loans.size());
+        when(loanRepository.findLoanIdsOrdered(any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(0);
+            return loans.stream().map(Loan::getLoanId).sorted()
+                    .skip(pageable.getOffset()).limit(pageable.getPageSize()).toList();
+        });
+        when(loanRepository.findLoanRange(any(), any(), any(), any())).thenAnswer(invocation -> {
+            String after = invocation.getArgument(0);
+            String last = invocation.getArgument(1);
+            Instant createdBefore = invocation.getArgument(2);
+            Limit limit = invocation.getArgument(3);
+            return loans.stream()
+                    .filter(l -> l.getLoanId().compareTo(after) > 0 && (last == null || l.getLoanId().compareTo(last) <= 0))
+                    .filter(l -> l.getCreatedDate().isBefore(createdBefore))
+                    .sorted(Comparator.comparing(Loan::getLoanId))
+                    .limit(limit.max())
+                    .toList();
+        });
+        when(paymentRepository.findPaymentRange(any(), any(), any())).thenAnswer(invocation -> {
+            String after = invocation.getArgument(0);
+            String last = invocation.getArgument(1);
+            Instant paidBefore = invocation.getArgument(2);
+            return payments.stream()
+                    .filter(p -> p.loanId().compareTo(after) > 0 && p.loanId().compareTo(last) <= 0)
+                    .filter(p -> p.paymentDate().isBefore(paidBefore))
+                    .sorted(Comparator.comparing(LoanPaymentRecord::loanId).thenComparing(LoanPaymentRecord::paymentDate))
+                    .toList();
+        });
+    }
+
+    private Map<String, LoanStatement> readStatements() throws Exception {
+        Map<String, LoanStatement> statements = new TreeMap<>();
+
+        try (Stream<Path> files = Files.list(outputDirectory.resolve(PERIOD.toString()))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".jsonl")).toList()) {
+                for (String line : Files.readAllLines(file)) {
+                    LoanStatement statement = objectMapper.readValue(line, LoanStatement.class);
+                    statements.put(statement.loanId(), statement);
+                }
+            }
+        }
+
+        return statements;
+    }
+
+    /**
+     * Opening balance accounts for payments before the period, only in-period payments are listed,
+     * and loans paid off before the period get no statement.
+     */
+    @Test
+    void generateStatements_writesStatementPerLoanWithBalance() throws Exception {
+        StatementJobRun run = statementJobService.generateStatements(PERIOD, false);
+
+        assertEquals(2, run.partitions());
+        assertEquals(4, run.loansScanned());
+        assertEquals(3, run.statementsWritten());
+
+        Map<String, LoanStatement> statements = readStatements();
+
+        assertEquals(Set.of("LOAN_A", "LOAN_C", "LOAN_D"), statements.keySet());
+        assertEquals(800.0, statements.get("LOAN_A").openingBalance());
+        assertEquals(1, statements.get("LOAN_A").payments().size());
+        assertEquals(700.0, statements.get("LOAN_A").closingBalance());
+        assertEquals(300.0, statements.get("LOAN_C").closingBalance());
+        assertEquals(600.0, statements.get("LOAN_D").openingBalance());
+        assertEquals(2, statements.get("LOAN_D").payments().size());
+        assertEquals(450.0, statements.get("LOAN_D").closingBalance());
+    }
+
+    /** A loan paid off in amounts whose double sum falls a fraction of a cent short still counts as paid off. */
+    @Test
+    void generateStatements_skipsLoanPaidOffInFractionalAmounts() throws Exception {
+        addLoan("LOAN_E", 1.0);
+        addPayment("LOAN_E", 0.7, "2026-07-01T00:00:00Z");
+        addPayment("LOAN_E", 0.1, "2026-07-02T00:00:00Z");
+        addPayment("LOAN_E", 0.1, "2026-07-03T00:00:00Z");
+        addPayment("LOAN_E", 0.1, "2026-07-04T00:00:00Z");
+
+        StatementJobRun run = statementJobService.generateStatements(PERIOD, false);
+
+        assertEquals(3, run.statementsWritten());
+        assertFalse(readStatements().containsKey("LOAN_E"));
+    }
+
+    /** Payments are read with one range scan per page of loans, never per loan. */
+    @Test
+    void generateStatements_readsPaymentsPerPage() {
+        statementJobService.generateStatements(PERIOD, false);
+
+        verify(paymentRepository, times(2)).findPaymentRange(any(), any(), any());
+        verify(paymentRepository, never()).findByLoan(any());
+    }
+
+    /** A rerun for a completed period resumes from its checkpoints and does no further work. */
+    @Test
+    void generateStatements_resumesFromCheckpoints() throws Exception {
+        statementJobService.generateStatements(PERIOD, false);
+        Map<String, LoanStatement> firstRun = readStatements();
+
+        StatementJobRun rerun = statementJobService.generateStatements(PERIOD, false);
+
+        assertEquals(2, rerun.resumedPartitions());
+        assertEquals(0, rerun.loansScanned());
+        assertEquals(firstRun, readStatements());
+    }
+
+    /** Restarting a period discards the earlier output and regenerates every statement. */
+    @Test
+    void generateStatements_restartsWhenRequested() throws Exception {
+        statementJobService.generateStatements(PERIOD, false);
+        addLoan("LOAN_E", 100.0);
+
+        StatementJobRun restarted = statementJobService.generateStatements(PERIOD, true);
+
+        assertEquals(0, restarted.resumedPartitions());
+        assertEquals(5, restarted.loansScanned());
+        assertTrue(readStatements().containsKey("LOAN_E"));
+    }
+
+    /** Loans that sort after the last stored bound, e.g. created after the bounds were computed, are still covered. */
+    @Test
+    void generateStatements_lastPartitionIsOpenEnded() throws Exception {
+        Path periodDirectory = Files.createDirectories(outputDirectory.resolve(PERIOD.toString()));
+        Files.writeString(periodDirectory.resolve("partitions"), "LOAN_A\nLOAN_B");
+
+        StatementJobRun run = statementJobService.generateStatements(PERIOD, false);
+
+        assertEquals(4, run.loansScanned());
+        assertTrue(readStatements().keySet().containsAll(Set.of("LOAN_C", "LOAN_D")));
+    }
+
+    private StatementJob awaitJob(YearMonth period) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        StatementJob job = statementJobService.getStatementJob(period);
+
+        while (job.status() == StatementJob.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = statementJobService.getStatementJob(period);
+        }
+
+        return job;
+    }
+
+    /** A started run returns at once and its summary is available from the status once the background run ends. */
+    @Test
+    void startStatements_runsInBackground() throws Exception {
+        assertThrows(StatementJobNotFoundException.class, () -> statementJobService.getStatementJob(PERIOD));
+
+        StatementJob started = statementJobService.startStatements(PERIOD, false);
+        StatementJob finished = awaitJob(PERIOD);
+
+        assertEquals("2026-09", started.period());
+        assertEquals(StatementJob.Status.COMPLETED, finished.status());
+        assertNotNull(finished.finishedAt());
+        assertEquals(3, finished.run().statementsWritten());
+    }
+
+    /** A client retrying while its run is still going rejoins that run; another period has to wait. */
+    @Test
+    void startStatements_whileRunning() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(loanRepository.count()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return (long) loans.size();
+        });
+
+        StatementJob started = statementJobService.startStatements(PERIOD, false);
+
+        assertSame(started, statementJobService.startStatements(PERIOD, false));
+        assertThrows(StatementJobRunningException.class, () -> statementJobService.startStatements(PERIOD.plusMonths(1), false));
+        assertThrows(StatementJobRunningException.class, () -> statementJobService.startStatements(PERIOD, true));
+
+        release.countDown();
+
+        assertEquals(StatementJob.Status.COMPLETED, awaitJob(PERIOD).status());
+    }
+
+    /** A failed run is reported in the status and frees the slot for the next run. */
+    @Test
+    void startStatements_reportsFailure() throws Exception {
+        when(loanRepository.count()).thenThrow(new IllegalStateException("Database unavailable"));
+
+        statementJobService.startStatements(PERIOD, false);
+        StatementJob failed = awaitJob(PERIOD);
+
+        assertEquals(StatementJob.Status.FAILED, failed.status());
+        assertEquals("Database unavailable", failed.error());
+        assertDoesNotThrow(() -> statementJobService.startStatements(PERIOD.plusMonths(1), false));
+    }
+}
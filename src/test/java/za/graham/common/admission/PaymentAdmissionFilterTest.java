@@ -0,0 +1,195 @@
+package za.graham.common.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentAdmissionFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private PaymentAdmissionFilter buildFilter(AdmissionProperties properties) {
+        return new PaymentAdmissionFilter(properties, objectMapper, meterRegistry);
+    }
+
+    private MockHttpServletResponse postPayment(PaymentAdmissionFilter filter, String remoteAddr) throws Exception {
+        return postPayment(filter, remoteAddr, null);
+    }
+
+    private MockHttpServletResponse postPayment(PaymentAdmissionFilter filter, String remoteAddr, String clientId)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/payments");
+        request.setRemoteAddr(remoteAddr);
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    /** Requests within both the client rate and the concurrency limit reach the controller. */
+    @Test
+    void admitsRequest_whenWithinLimits() throws Exception {
+        PaymentAdmissionFilter filter = buildFilter(new AdmissionProperties());
+
+        MockHttpServletResponse response = postPayment(filter, "10.0.0.1");
+
+        assertEquals(200, response.getStatus());
+        assertEquals(0, filter.getConcurrencyLimiter().getInFlight());
+        assertEquals(1.0, meterRegistry.get("payments.admission.admitted").counter().count());
+    }
+
+    /** Once a client's burst is spent, further requests get 429 with Retry-After, other clients are unaffected. */
+    @Test
+    void rejectsWith429_whenClientBucketEmpty() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setClientRatePerSecond(0.5);
+        properties.setClientBurst(2);
+        PaymentAdmissionFilter filter = buildFilter(properties);
+
+        assertEquals(200, postPayment(filter, "10.0.0.1").getStatus());
+        assertEquals(200, postPayment(filter, "10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = postPayment(filter, "10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getContentAsString().contains("AdmissionRejectedException"));
+        assertEquals(200, postPayment(filter, "10.0.0.2").getStatus());
+        assertEquals(1.0, meterRegistry.get("payments.admission.rejected").tag("reason", "rate").counter().count());
+    }
+
+    /** A caller cannot escape its limit by sending a different client header on each request. */
+    @Test
+    void ignoresClientHeader_whenNotFromTrustedProxy() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setClientRatePerSecond(0.5);
+        properties.setClientBurst(1);
+        PaymentAdmissionFilter filter = buildFilter(properties);
+
+        assertEquals(200, postPayment(filter, "10.0.0.1", "client-a").getStatus());
+        assertEquals(429, postPayment(filter, "10.0.0.1", "client-b").getStatus());
+    }
+
+    /** Behind a trusted proxy the client header identifies each client, falling back to the proxy address. */
+    @Test
+    void limitsByClientHeader_whenFromTrustedProxy() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setClientRatePerSecond(0.5);
+        properties.setClientBurst(1);
+        properties.setTrustedProxies(List.of("10.0.0.9"));
+        PaymentAdmissionFilter filter = buildFilter(properties);
+
+        assertEquals(200, postPayment(filter, "10.0.0.9", "client-a").getStatus());
+        assertEquals(200, postPayment(filter, "10.0.0.9", "client-b").getStatus());
+        assertEquals(429, postPayment(filter, "10.0.0.9", "client-a").getStatus());
+        assertEquals(200, postPayment(filter, "10.0.0.9").getStatus());
+        assertEquals(429, postPayment(filter, "10.0.0.9").getStatus());
+    }
+
+    /** Tracked clients never exceed the configured maximum; a client beyond it is not rate limited until there is room. */
+    @Test
+    void tracksAtMostMaxClients() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setClientRatePerSecond(0.5);
+        properties.setClientBurst(1);
+        properties.setMaxTrackedClients(2);
+        PaymentAdmissionFilter filter = buildFilter(properties);
+
+        assertEquals(200, postPayment(filter, "10.0.0.1").getStatus());
+        assertEquals(200, postPayment(filter, "10.0.0.2").getStatus());
+        assertEquals(200, postPayment(filter, "10.0.0.3").getStatus());
+        assertEquals(200, postPayment(filter, "10.0.0.3").getStatus());
+
+        assertEquals(2.0, meterRegistry.get("payments.admission.clients").gauge().value());
+        assertEquals(429, postPayment(filter, "10.0.0.1").getStatus());
+    }
+
+    /** Clients whose buckets have refilled are swept out; clients still being limited are kept. */
+    @Test
+    void sweepIdleClients_removesRefilledBuckets() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setClientRatePerSecond(0.5);
+        properties.setClientBurst(2);
+        PaymentAdmissionFilter filter = buildFilter(properties);
+
+        assertEquals(200, postPayment(filter, "10.0.0.1").getStatus());
+        filter.sweepIdleClients();
+
+        assertEquals(1.0, meterRegistry.get("payments.admission.clients").gauge().value());
+
+        SimpleMeterRegistry fastRefillRegistry = new SimpleMeterRegistry();
+        properties.setClientRatePerSecond(1_000_000);
+        PaymentAdmissionFilter fastRefill = new PaymentAdmissionFilter(properties, objectMapper, fastRefillRegistry);
+
+        assertEquals(200, postPayment(fastRefill, "10.0.0.2").getStatus());
+        Thread.sleep(5);
+        fastRefill.sweepIdleClients();
+
+        assertEquals(0.0, fastRefillRegistry.get("payments.admission.clients").gauge().value());
+    }
+
+    /** With every slot in flight, new requests are turned away with 503 instead of queueing. */
+    @Test
+    void rejectsWith503_whenConcurrencyLimitReached() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setMaxConcurrent(1);
+        PaymentAdmissionFilter filter = buildFilter(properties);
+
+        assertTrue(filter.getConcurrencyLimiter().tryAcquire());
+
+        MockHttpServletResponse rejected = postPayment(filter, "10.0.0.1");
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("payments.admission.rejected").tag("reason", "concurrency").counter().count());
+    }
+
+    /** Only payment submissions are subject to admission control. */
+    @Test
+    void skipsNonPostRequests() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setMaxConcurrent(1);
+        PaymentAdmissionFilter filter = buildFilter(properties);
+        filter.getConcurrencyLimiter().tryAcquire();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/payments"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+
+    /** The adaptive limit backs off on slow requests and grows again once latency recovers. */
+    @Test
+    void adaptiveLimit_followsLatency() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setAdaptive(true);
+        properties.setMaxConcurrent(20);
+        properties.setTargetLatencyMillis(0);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties);
+
+        limiter.tryAcquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertEquals(18, limiter.getLimit());
+
+        for (int i = 0; i < 18; i++) {
+            limiter.tryAcquire();
+            limiter.release(0);
+        }
+
+        assertEquals(19, limiter.getLimit());
+    }
+}
@@ -0,0 +1,218 @@
+package za.graham.common.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AuditLog auditLog;
+
+    @AfterEach
+    void tearDown() {
+        if (auditLog != null) {
+            auditLog.close();
+        }
+    }
+
+    private AuditProperties properties(int queueCapacity, AuditProperties.OverflowPolicy overflowPolicy) {
+        AuditProperties properties = new AuditProperties();
+        properties.setDirectory(directory.toString());
+        properties.setQueueCapacity(queueCapacity);
+        properties.setOverflowPolicy(overflowPolicy);
+        return properties;
+    }
+
+    private static AuditEvent event(String loanId, long sequence) {
+        return new AuditEvent(1_767_225_600_000L, AuditEvent.Action.PAYMENT_PROCESSED, loanId, "PAYMENT_" + sequence,
+                100.0, 201, AuditEvent.SUCCESS, sequence);
+    }
+
+    private static long sequence(String line) {
+        return Long.parseLong(line.substring(line.lastIndexOf(':') + 1, line.length() - 1));
+    }
+
+    private List<String> readLines(String fileName) throws Exception {
+        return Files.readAllLines(directory.resolve(fileName));
+    }
+
+    @Test
+    void record_writesOneJsonLinePerEvent() throws Exception {
+        auditLog = new AuditLog(properties(16, AuditProperties.OverflowPolicy.DROP), meterRegistry);
+        auditLog.start();
+
+        auditLog.record(event("LOAN_001", 1));
+        auditLog.record(new AuditEvent(1_767_225_600_000L, AuditEvent.Action.LOAN_CREATED, "LOAN_\"2\"", null,
+                -20.0, 400, "InvalidDataException", 35));
+        auditLog.close();
+
+        assertEquals(List.of(
+                "{\"timestamp\":\"2026-01-01T00:00:00Z\",\"action\":\"PAYMENT_PROCESSED\",\"loanId\":\"LOAN_001\","
+                        + "\"paymentId\":\"PAYMENT_1\",\"amount\":100.0,\"status\":201,\"outcome\":\"SUCCESS\",\"latencyMicros\":1}",
+                "{\"timestamp\":\"2026-01-01T00:00:00Z\",\"action\":\"LOAN_CREATED\",\"loanId\":\"LOAN_\\\"2\\\"\","
+                        + "\"paymentId\":null,\"amount\":-20.0,\"status\":400,\"outcome\":\"InvalidDataException\",\"latencyMicros\":35}"),
+                readLines("audit.jsonl"));
+        assertEquals(2, meterRegistry.counter("audit.events.written").count());
+    }
+
+    /** Under the DROP policy a full queue fails fast and the event is counted, instead of holding up the request. */
+    @Test
+    void record_dropsAndCounts_whenQueueFull() throws Exception {
+        auditLog = new AuditLog(properties(2, AuditProperties.OverflowPolicy.DROP), meterRegistry);
+
+        assertTrue(auditLog.record(event("LOAN_001", 1)));
+        assertTrue(auditLog.record(event("LOAN_001", 2)));
+        assertFalse(auditLog.record(event("LOAN_001", 3)));
+        assertEquals(1, auditLog.dropped());
+        assertEquals(1, meterRegistry.counter("audit.events.dropped", "reason", "queue_full").count());
+
+        // Events already queued are still written once the writer runs
+        auditLog.start();
+        auditLog.close();
+
+        assertEquals(2, readLines("audit.jsonl").size());
+    }
+
+    /** Under the BLOCK policy concurrent producers wait for space, so nothing is lost even with a tiny queue. */
+    @Test
+    void record_blocksUntilSpace_withConcurrentProducers() throws Exception {
+        auditLog = new AuditLog(properties(8, AuditProperties.OverflowPolicy.BLOCK), meterRegistry);
+        auditLog.start();
+
+        int producers = 4;
+        int eventsPerProducer = 5_000;
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            String loanId = "LOAN_" + p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    auditLog.record(event(loanId, i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        auditLog.close();
+
+        List<String> lines = readLines("audit.jsonl");
+        Set<String> distinct = new HashSet<>(lines);
+
+        assertEquals(0, auditLog.dropped());
+        assertEquals(producers * eventsPerProducer, lines.size());
+        assertEquals(lines.size(), distinct.size());
+    }
+
+    /** The active file rolls at the size limit and only {maxHistory} rolled files are kept. */
+    @Test
+    void write_rollsFiles_atSizeLimit() throws Exception {
+        AuditProperties properties = properties(64, AuditProperties.OverflowPolicy.BLOCK);
+        properties.setMaxFileBytes(400);
+        properties.setMaxHistory(2);
+        auditLog = new AuditLog(properties, meterRegistry);
+        auditLog.start();
+
+        for (int i = 0; i < 20; i++) {
+            auditLog.record(event("LOAN_001", i));
+        }
+
+        auditLog.close();
+
+        assertTrue(Files.exists(directory.resolve("audit.jsonl")));
+        assertTrue(Files.exists(directory.resolve("audit.1.jsonl")));
+        assertTrue(Files.exists(directory.resolve("audit.2.jsonl")));
+        assertFalse(Files.exists(directory.resolve("audit.3.jsonl")));
+        assertTrue(Files.size(directory.resolve("audit.1.jsonl")) <= 400);
+
+        // The newest events are in the active file, continuing straight on from the most recently rolled one
+        List<String> active = readLines("audit.jsonl");
+        List<String> rolled = readLines("audit.1.jsonl");
+        assertTrue(active.get(active.size() - 1).contains("\"latencyMicros\":19}"));
+        assertEquals(sequence(rolled.get(rolled.size() - 1)) + 1, sequence(active.get(0)));
+    }
+
+    /** The size limit counts bytes, so a file of multi-byte characters still rolls before exceeding it. */
+    @Test
+    void write_rollsFiles_atSizeLimitInBytes() throws Exception {
+        AuditProperties properties = properties(64, AuditProperties.OverflowPolicy.BLOCK);
+        properties.setMaxFileBytes(600);
+        auditLog = new AuditLog(properties, meterRegistry);
+        auditLog.start();
+
+        for (int i = 0; i < 10; i++) {
+            auditLog.record(new AuditEvent(1_767_225_600_000L, AuditEvent.Action.PAYMENT_PROCESSED, "LOAN_001",
+                    "PAYMENT_" + i, 100.0, 500, "Échec de paiement — réessayer 支付失败", i));
+        }
+
+        auditLog.close();
+
+        assertTrue(Files.size(directory.resolve("audit.jsonl")) <= 600);
+        assertTrue(Files.size(directory.resolve("audit.1.jsonl")) <= 600);
+        assertEquals("Échec".getBytes(StandardCharsets.UTF_8).length, AuditLog.utf8Length("Échec"));
+        assertEquals(4, AuditLog.utf8Length("\uD83D\uDCB0"));
+    }
+
+    /** An amount that is not finite is written as a string, so every line stays valid JSON. */
+    @Test
+    void format_quotesNonFiniteAmount() throws Exception {
+        StringBuilder line = new StringBuilder();
+        AuditLog.format(new AuditEvent(1_767_225_600_000L, AuditEvent.Action.PAYMENT_PROCESSED, "LOAN_001", null,
+                Double.NaN, 400, "InvalidDataException", 1), line);
+
+        JsonNode json = new ObjectMapper().readTree(line.toString());
+
+        assertEquals("NaN", json.get("amount").asText());
+        assertTrue(json.get("amount").isTextual());
+    }
+
+    /** A log that could not be opened is opened again on a later write instead of dropping events for good. */
+    @Test
+    void write_reopensLog_afterOpenFails() throws Exception {
+        Path blocked = directory.resolve("logs");
+        Files.writeString(blocked, "not a directory");
+        AuditProperties properties = properties(16, AuditProperties.OverflowPolicy.DROP);
+        properties.setDirectory(blocked.toString());
+        auditLog = new AuditLog(properties, meterRegistry);
+        auditLog.reopenIntervalNanos = 0;
+        auditLog.start();
+
+        auditLog.record(event("LOAN_001", 1));
+
+        for (int attempt = 0; attempt < 500 && auditLog.dropped() == 0; attempt++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, auditLog.dropped());
+        Files.delete(blocked);
+
+        auditLog.record(event("LOAN_001", 2));
+        auditLog.close();
+
+        List<String> lines = Files.readAllLines(blocked.resolve("audit.jsonl"));
+        assertEquals(1, lines.size());
+        assertEquals(2, sequence(lines.get(0)));
+    }
+}
@@ -0,0 +1,67 @@
+package za.graham.common.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_hasNoFalseNegatives_andAboutTheTargetFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("LOAN_" + Long.toHexString(0x1A15000000000L + i * 7L).toUpperCase());
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("LOAN_" + Long.toHexString(0x1A15000000000L + i * 7L).toUpperCase()));
+        }
+
+        int falsePositives = 0;
+
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("LOAN_MISSING_" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+        assertEquals(7, filter.hashCount());
+    }
+
+    @Test
+    void add_fromConcurrentThreads_losesNothing() throws Exception {
+        BloomFilter filter = new BloomFilter(80_000, 0.01);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    filter.add("LOAN_" + thread + "_" + i);
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(filter.mightContain("LOAN_" + t + "_" + i));
+            }
+        }
+    }
+
+    @Test
+    void constructor_rejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 1.0));
+    }
+}
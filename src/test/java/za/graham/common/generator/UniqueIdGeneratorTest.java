@@ -0,0 +1,50 @@
+package za.graham.common.generator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UniqueIdGeneratorTest {
+
+    private final UniqueIdGenerator generator = new UniqueIdGenerator();
+
+    @AfterEach
+    void tearDown() {
+        generator.setNodeId(0);
+    }
+
+    /** IDs from instances with different node IDs can never be equal, whatever their timestamps. */
+    @Test
+    void generateUniqueId_differsByNodeId() {
+        generator.setNodeId(1);
+        String first = UniqueIdGenerator.generateUniqueId("LOAN");
+        generator.setNodeId(2);
+        String second = UniqueIdGenerator.generateUniqueId("LOAN");
+
+        assertTrue(first.endsWith("0001"));
+        assertTrue(second.endsWith("0002"));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void issuedAtMillis_readsBackCreationTime() {
+        long before = System.currentTimeMillis();
+        String id = UniqueIdGenerator.generateUniqueId("PAYMENT");
+
+        OptionalLong issuedAt = UniqueIdGenerator.issuedAtMillis(id);
+
+        assertTrue(issuedAt.isPresent());
+        assertTrue(issuedAt.getAsLong() >= before);
+        assertTrue(UniqueIdGenerator.issuedAtMillis("LOAN_TYPO").isEmpty());
+        assertTrue(UniqueIdGenerator.issuedAtMillis("LOAN_A").isEmpty());
+        assertTrue(UniqueIdGenerator.issuedAtMillis("LOAN").isEmpty());
+    }
+
+    @Test
+    void setNodeId_rejectsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> generator.setNodeId(UniqueIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,55 @@
+package za.graham.common.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import za.graham.Loan.model.Loan;
+import za.graham.Payment.model.Payment;
+
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written serializers with the application's object mapper on a typical payment response.
+ * Disabled by default, run with: mvn test -Dtest=JsonSerializationBenchmark -Dbenchmark=true
+ */
+@JsonTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JsonSerializationBenchmark {
+
+    private static final int ITERATIONS = 2_000_000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Payment payment = new Payment("PAYMENT_5TR8WQ1C",
+            new Loan("LOAN_X7K2P9QM", 5000.0, 6, Loan.Status.ACTIVE, Instant.parse("2026-02-03T09:15:02.114Z"), 2L),
+            1000.0, Instant.parse("2026-02-03T09:16:44.507Z"), false);
+
+    @Test
+    void benchmarkSerialization() throws Exception {
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                objectMapper.writeValue(OutputStream.nullOutputStream(), payment);
+            }
+
+            long jacksonNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                JsonSerializers.write(JsonBuffer.acquire(), payment).writeTo(OutputStream.nullOutputStream());
+            }
+
+            long handWrittenNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: jackson %d ms (%.0f ns/op), hand-written %d ms (%.0f ns/op)%n", round,
+                    TimeUnit.NANOSECONDS.toMillis(jacksonNanos), (double) jacksonNanos / ITERATIONS,
+                    TimeUnit.NANOSECONDS.toMillis(handWrittenNanos), (double) handWrittenNanos / ITERATIONS);
+        }
+    }
+}
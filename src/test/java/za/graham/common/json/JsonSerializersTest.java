@@ -0,0 +1,135 @@
+package za.graham.common.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import za.graham.Loan.model.Loan;
+import za.graham.Loan.model.LoanQueryResult;
+import za.graham.Payment.model.Payment;
+import za.graham.common.api.ApiError;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The hand-written serializers must produce exactly the bytes the application's object mapper does.
+ */
+@JsonTest
+class JsonSerializersTest {
+
+    private static final List<String> STRINGS = List.of("", "LOAN_0000001", "quote \" and \\ backslash",
+            "controls \b\t\n\f\r \u0000 \u001F \u007F", "café ünïcödé", "€ ₿ 中文", "emoji 😀",
+            "unpaired \uD800 surrogate", "<script>&'/</script>");
+
+    private static final List<Double> AMOUNTS = List.of(0.0, -0.0, 0.1, 1.0, 100.5, 12345.67, 1e7, 1.0E-5,
+            Double.MAX_VALUE, Double.MIN_VALUE, -20.0, Double.NaN, Double.POSITIVE_INFINITY);
+
+    private static final List<Instant> INSTANTS = List.of(Instant.EPOCH, Instant.parse("2026-01-01T00:00:00Z"),
+            Instant.parse("2026-10-19T13:45:07.120Z"), Instant.parse("2026-10-19T13:45:07.123456Z"),
+            Instant.parse("2026-10-19T13:45:07.123456789Z"), Instant.parse("2026-10-19T13:45:07.000001Z"),
+            Instant.parse("2024-02-29T23:59:59.999Z"), Instant.parse("1969-12-31T23:59:59.5Z"),
+            Instant.parse("0001-01-01T00:00:00Z"), Instant.parse("9999-12-31T23:59:59.999999999Z"),
+            Instant.parse("+10000-01-01T00:00:00Z"), Instant.parse("-0001-06-15T12:00:00Z"));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private void assertSameBytes(Object value) throws Exception {
+        byte[] expected = objectMapper.writeValueAsBytes(value);
+        byte[] actual = JsonSerializers.toJson(value);
+
+        assertArrayEquals(expected, actual, () -> "expected " + new String(expected, StandardCharsets.UTF_8)
+                + " but was " + new String(actual, StandardCharsets.UTF_8));
+    }
+
+    private static Loan loan(String loanId, Double loanAmount, Instant createdDate) {
+        return Loan.builder().loanId(loanId).loanAmount(loanAmount).term(12).status(Loan.Status.ACTIVE)
+                .createdDate(createdDate).version(3L).build();
+    }
+
+    @Test
+    void loan_matchesObjectMapper() throws Exception {
+        assertSameBytes(new Loan());
+
+        for (String loanId : STRINGS) {
+            assertSameBytes(loan(loanId, 100.0, Instant.EPOCH));
+        }
+
+        for (Double amount : AMOUNTS) {
+            assertSameBytes(loan("LOAN_001", amount, Instant.EPOCH));
+        }
+
+        for (Instant createdDate : INSTANTS) {
+            assertSameBytes(loan("LOAN_001", 100.0, createdDate));
+        }
+
+        assertSameBytes(loan("LOAN_001", 100.0, null).toBuilder().status(Loan.Status.SETTLED).term(null).build());
+    }
+
+    @Test
+    void loanQueryResult_matchesObjectMapper() throws Exception {
+        assertSameBytes(new LoanQueryResult(List.of(), List.of()));
+        assertSameBytes(new LoanQueryResult(null, null));
+        assertSameBytes(new LoanQueryResult(List.of(loan("LOAN_001", 100.0, INSTANTS.get(2)), new Loan(),
+                loan("LOAN_002", 0.1, null)), STRINGS));
+    }
+
+    @Test
+    void payment_matchesObjectMapper() throws Exception {
+        assertSameBytes(new Payment());
+
+        for (Instant paymentDate : INSTANTS) {
+            assertSameBytes(new Payment("PAYMENT_001", loan("LOAN_001", 500.0, paymentDate), 125.25, paymentDate, false));
+        }
+
+        assertSameBytes(new Payment("PAYMENT_\"2\"", loan("LOAN_é", null, null), -0.0, null, true));
+    }
+
+    @Test
+    void apiError_matchesObjectMapper() throws Exception {
+        for (String message : STRINGS) {
+            assertSameBytes(new ApiError("InvalidDataException", message));
+        }
+
+        assertSameBytes(new ApiError(null, null));
+    }
+
+    /** Random instants across the whole four-digit-year range exercise the cached date prefix on every path. */
+    @Test
+    void instants_matchObjectMapper_acrossRange() throws Exception {
+        Random random = new Random(42);
+        long min = Instant.parse("0000-01-01T00:00:00Z").getEpochSecond();
+        long max = Instant.parse("9999-12-31T23:59:59Z").getEpochSecond();
+
+        for (int i = 0; i < 2_000; i++) {
+            long second = min + (long) (random.nextDouble() * (max - min));
+            int nano = switch (i % 4) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(1000) * 1_000_000;
+                case 2 -> random.nextInt(1_000_000) * 1_000;
+                default -> random.nextInt(1_000_000_000);
+            };
+
+            Instant instant = Instant.ofEpochSecond(second, nano);
+            assertSameBytes(loan("LOAN_001", 1.0, instant));
+            // The same second again is served from the cache
+            assertSameBytes(loan("LOAN_001", 1.0, instant.plusNanos(1_000_000 - nano % 1_000_000)));
+        }
+    }
+
+    @Test
+    void supports_onlyExactTypes() {
+        assertTrue(JsonSerializers.supports(Loan.class));
+        assertTrue(JsonSerializers.supports(LoanQueryResult.class));
+        assertTrue(JsonSerializers.supports(Payment.class));
+        assertTrue(JsonSerializers.supports(ApiError.class));
+        assertFalse(JsonSerializers.supports(Object.class));
+        assertFalse(JsonSerializers.supports(new Loan() { }.getClass()));
+        assertThrows(IllegalArgumentException.class, () -> JsonSerializers.toJson("text"));
+    }
+}
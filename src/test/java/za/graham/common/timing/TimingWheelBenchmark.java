@@ -0,0 +1,71 @@
+package za.graham.common.timing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cost per timer of scheduling into, and firing from, a {TimingWheel} as it grows to millions of pending timers.
+ * Disabled by default, run with: mvn test -Dtest=TimingWheelBenchmark -Dbenchmark=true [-Dbenchmark.timers=10000000]
+ * <p>
+ * Deadlines are one-second ticks spread over a year, as monthly installments would be. Scheduling should cost the
+ * same per timer at every size, and firing should be dominated by the timers fired rather than the ticks passed.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TimingWheelBenchmark {
+
+    private static final int TIMERS = Integer.getInteger("benchmark.timers", 10_000_000);
+
+    private static final long YEAR_TICKS = 365L * 24 * 60 * 60;
+
+    private static final int STEPS = 10;
+
+    @Test
+    void benchmarkScheduleAndFire() {
+        String[] values = new String[1024];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = "LOAN_" + i;
+        }
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            run(values, Math.min(TIMERS, 1_000_000), false);
+        }
+
+        run(values, TIMERS, true);
+    }
+
+    private static void run(final String[] values, final int timers, final boolean report) {
+        Random random = new Random(42);
+        TimingWheel<String> wheel = new TimingWheel<>(6, 6, 0);
+        int step = timers / STEPS;
+
+        for (int s = 0; s < STEPS; s++) {
+            long start = System.nanoTime();
+
+            for (int i = 0; i < step; i++) {
+                wheel.schedule(values[i & (values.length - 1)], 1 + (long) (random.nextDouble() * YEAR_TICKS));
+            }
+
+            if (report) {
+                System.out.printf("schedule: %,d -> %,d pending, %.1f ns/timer%n", wheel.size() - step, wheel.size(),
+                        (System.nanoTime() - start) / (double) step);
+            }
+        }
+
+        long[] fired = new long[1];
+        long start = System.nanoTime();
+        wheel.advanceTo(YEAR_TICKS, value -> fired[0]++);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(step * (long) STEPS, fired[0]);
+
+        if (report) {
+            System.out.printf("fire: %,d timers over %,d ticks in %d ms, %.1f ns/timer%n", fired[0], YEAR_TICKS,
+                    elapsed / 1_000_000, elapsed / (double) fired[0]);
+        }
+    }
+}
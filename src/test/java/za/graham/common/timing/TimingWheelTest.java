@@ -0,0 +1,106 @@
+package za.graham.common.timing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static List<String> advance(TimingWheel<String> wheel, long tick) {
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(tick, fired::add);
+        return fired;
+    }
+
+    @Test
+    void advanceTo_firesEachTimerOnItsDeadline_onEveryLevel() {
+        TimingWheel<String> wheel = new TimingWheel<>(6, 4, 1_000);
+        // Deadlines that land on levels 0, 1, 2 and 3
+        wheel.schedule("level0", 1_010);
+        wheel.schedule("level1", 1_000 + 4_000);
+        wheel.schedule("level2", 1_000 + 250_000);
+        wheel.schedule("level3", 1_000 + 16_000_000);
+
+        assertEquals(4, wheel.size());
+        assertEquals(List.of(), advance(wheel, 1_009));
+        assertEquals(List.of("level0"), advance(wheel, 1_010));
+        assertEquals(List.of(), advance(wheel, 4_999));
+        assertEquals(List.of("level1"), advance(wheel, 5_000));
+        assertEquals(List.of(), advance(wheel, 250_999));
+        assertEquals(List.of("level2"), advance(wheel, 251_000));
+        assertEquals(List.of(), advance(wheel, 16_000_999));
+        assertEquals(List.of("level3"), advance(wheel, 16_001_000));
+        assertEquals(0, wheel.size());
+        assertEquals(16_001_000, wheel.currentTick());
+    }
+
+    @Test
+    void schedule_firesOnNextAdvance_whenDeadlineHasPassed() {
+        TimingWheel<String> wheel = new TimingWheel<>(6, 4, 500);
+        wheel.schedule("late", 100);
+        wheel.schedule("now", 500);
+
+        assertEquals(2, advance(wheel, 500).size());
+        assertEquals(0, wheel.size());
+    }
+
+    /** Deadlines beyond the top level's range wait in it and are re-placed until they come into range. */
+    @Test
+    void advanceTo_firesOnDeadline_whenBeyondWheelRange() {
+        TimingWheel<String> wheel = new TimingWheel<>(2, 2, 0);
+        wheel.schedule("far", 100);
+
+        assertEquals(List.of(), advance(wheel, 99));
+        assertEquals(List.of("far"), advance(wheel, 100));
+    }
+
+    @Test
+    void advanceTo_firesEveryTimerExactlyOnce_atFirstAdvancePastItsDeadline() {
+        Random random = new Random(42);
+        long start = 123_456;
+        TimingWheel<String> wheel = new TimingWheel<>(6, 5, start);
+        Map<String, Long> deadlines = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            // Mostly spread over 2^24 ticks, with some already due and some on the very next tick
+            long deadline = switch (i % 10) {
+                case 0 -> start - random.nextInt(1_000);
+                case 1 -> start + 1;
+                default -> start + random.nextInt(1 << 24);
+            };
+            deadlines.put("T" + i, deadline);
+            wheel.schedule("T" + i, deadline);
+        }
+
+        Map<String, Long> firedAt = new HashMap<>();
+        long tick = start;
+
+        while (tick < start + (1 << 24)) {
+            long previous = tick;
+            tick += 1 + random.nextInt(5_000);
+            long now = tick;
+
+            wheel.advanceTo(now, value -> {
+                assertNull(firedAt.put(value, now), () -> value + " fired twice");
+                long deadline = deadlines.get(value);
+                assertTrue(deadline <= now, () -> value + " fired early");
+                assertTrue(deadline > previous || deadline <= start, () -> value + " fired late");
+            });
+        }
+
+        assertEquals(deadlines.keySet(), firedAt.keySet());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void constructor_rejectsRangeWiderThanTicks() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(8, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(0, 4, 0));
+    }
+}